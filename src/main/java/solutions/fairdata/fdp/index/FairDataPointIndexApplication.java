@@ -24,11 +24,13 @@ package solutions.fairdata.fdp.index;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import solutions.fairdata.fdp.index.utils.HttpClientUtils;
 
 @SpringBootApplication
 public class FairDataPointIndexApplication {
 
     public static void main(String[] args) {
+        HttpClientUtils.configureDnsCache();
         SpringApplication.run(FairDataPointIndexApplication.class, args);
     }
 }
@@ -31,6 +31,8 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import solutions.fairdata.fdp.index.entity.events.Event;
 import solutions.fairdata.fdp.index.service.EventService;
+import solutions.fairdata.fdp.index.service.IndexEntryService;
+import solutions.fairdata.fdp.index.service.WebhookDeadLetterService;
 import solutions.fairdata.fdp.index.service.WebhookService;
 
 import javax.servlet.http.HttpServletRequest;
@@ -47,6 +49,12 @@ public class AdminController {
     @Autowired
     private WebhookService webhookService;
 
+    @Autowired
+    private IndexEntryService indexEntryService;
+
+    @Autowired
+    private WebhookDeadLetterService webhookDeadLetterService;
+
     @Operation(hidden = true)
     @PostMapping("/trigger")
     @PreAuthorize("hasRole('ADMIN')")
@@ -67,4 +75,26 @@ public class AdminController {
         final Event event = webhookService.handleWebhookPing(request, webhook);
         webhookService.triggerWebhooks(event);
     }
+
+    @Operation(hidden = true)
+    @PostMapping("/webhooks/dead-letters/replay")
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public void replayDeadLetters(@RequestParam(required = false) UUID webhook, HttpServletRequest request) {
+        logger.info("Received replay of webhook dead letters ({}) from {}", webhook == null ? "all" : webhook, request.getRemoteAddr());
+        if (webhook == null) {
+            webhookDeadLetterService.getWebhooksWithDeadLetters().forEach(webhookDeadLetterService::replay);
+        } else {
+            webhookDeadLetterService.replay(webhookService.getWebhook(webhook));
+        }
+    }
+
+    @Operation(hidden = true)
+    @DeleteMapping("/entries")
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void removeEntry(@RequestParam String clientUrl, HttpServletRequest request) {
+        logger.info("Received removal of entry {} from {}", clientUrl, request.getRemoteAddr());
+        indexEntryService.removeEntry(clientUrl);
+    }
 }
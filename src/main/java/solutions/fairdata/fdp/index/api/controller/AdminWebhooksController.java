@@ -0,0 +1,96 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.api.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import solutions.fairdata.fdp.index.api.dto.WebhookDTO;
+import solutions.fairdata.fdp.index.service.WebhookService;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.Valid;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/admin/webhooks")
+public class AdminWebhooksController {
+    private static final Logger logger = LoggerFactory.getLogger(AdminWebhooksController.class);
+
+    @Autowired
+    private WebhookService webhookService;
+
+    @Operation(hidden = true)
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public List<WebhookDTO> getWebhooks() {
+        return webhookService.getWebhooks().stream().map(webhookService::toDTO).collect(Collectors.toList());
+    }
+
+    @Operation(hidden = true)
+    @GetMapping("/{uuid}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public WebhookDTO getWebhook(@PathVariable UUID uuid) {
+        return webhookService.toDTO(webhookService.getWebhook(uuid));
+    }
+
+    @Operation(hidden = true)
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseStatus(HttpStatus.CREATED)
+    public WebhookDTO createWebhook(@Valid @RequestBody WebhookDTO webhookDTO, HttpServletRequest request) {
+        logger.info("Received new webhook for {} from {}", webhookDTO.getPayloadUrl(), request.getRemoteAddr());
+        return webhookService.toDTO(webhookService.createWebhook(webhookDTO));
+    }
+
+    @Operation(hidden = true)
+    @PutMapping("/{uuid}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public WebhookDTO updateWebhook(@PathVariable UUID uuid, @Valid @RequestBody WebhookDTO webhookDTO, HttpServletRequest request) {
+        logger.info("Received update of webhook {} from {}", uuid, request.getRemoteAddr());
+        return webhookService.toDTO(webhookService.updateWebhook(uuid, webhookDTO));
+    }
+
+    @Operation(hidden = true)
+    @DeleteMapping("/{uuid}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void deleteWebhook(@PathVariable UUID uuid, HttpServletRequest request) {
+        logger.info("Received removal of webhook {} from {}", uuid, request.getRemoteAddr());
+        webhookService.deleteWebhook(uuid);
+    }
+
+    @Operation(hidden = true)
+    @PostMapping("/import")
+    @PreAuthorize("hasRole('ADMIN')")
+    public List<WebhookDTO> importWebhooks(@RequestBody List<WebhookDTO> webhookDTOs, HttpServletRequest request) {
+        logger.info("Received import of {} webhooks from {}", webhookDTOs.size(), request.getRemoteAddr());
+        return webhookService.importWebhooks(webhookDTOs).stream().map(webhookService::toDTO).collect(Collectors.toList());
+    }
+}
@@ -22,20 +22,34 @@
  */
 package solutions.fairdata.fdp.index.api.controller;
 
+import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import solutions.fairdata.fdp.index.api.dto.EventTimelineDTO;
 import solutions.fairdata.fdp.index.api.dto.IndexEntryDTO;
+import solutions.fairdata.fdp.index.api.dto.IndexEntryTombstoneDTO;
+import solutions.fairdata.fdp.index.api.dto.SearchHitDTO;
+import solutions.fairdata.fdp.index.api.dto.SearchResultDTO;
+import solutions.fairdata.fdp.index.service.EntryChangeService;
+import solutions.fairdata.fdp.index.service.EntryLookupService;
+import solutions.fairdata.fdp.index.service.EventService;
+import solutions.fairdata.fdp.index.service.HttpCacheService;
 import solutions.fairdata.fdp.index.service.IndexEntryService;
+import solutions.fairdata.fdp.index.service.SearchService;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 @Tag(name = "Entries")
 @RestController
@@ -45,13 +59,85 @@ public class EntriesController {
     @Autowired
     private IndexEntryService service;
 
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private HttpCacheService httpCacheService;
+
+    @Autowired
+    private EntryChangeService entryChangeService;
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private EntryLookupService entryLookupService;
+
     @GetMapping("")
-    public Page<IndexEntryDTO> getEntriesPage(Pageable pageable, @RequestParam(defaultValue = "all") String state) {
+    public Page<IndexEntryDTO> getEntriesPage(ServletWebRequest request, Pageable pageable, @RequestParam(defaultValue = "all") String state) {
+        if (httpCacheService.checkNotModified(request)) {
+            return null;
+        }
         return service.getEntriesPage(pageable, state).map(service::toDTO);
     }
 
+    @Operation(description = "All entries, or only entries modified or retrieved after since (ISO 8601 instant) "
+            + "to be combined with /entries/removed for incremental synchronization")
     @GetMapping("/all")
-    public List<IndexEntryDTO> getEntriesAll() {
-        return StreamSupport.stream(service.getAllEntries().spliterator(), true).map(service::toDTO).collect(Collectors.toList());
+    public List<IndexEntryDTO> getEntriesAll(ServletWebRequest request, @RequestParam(required = false) Instant since) {
+        if (httpCacheService.checkNotModified(request)) {
+            return null;
+        }
+        var entries = since == null ? service.getAllEntriesListing() : service.getEntriesChangedSince(since);
+        return entries.stream().map(service::toDTO).collect(Collectors.toList());
+    }
+
+    @Operation(description = "Entries removed after since (ISO 8601 instant); removals should be applied before "
+            + "changed entries as a removed entry may be registered again")
+    @GetMapping("/removed")
+    public List<IndexEntryTombstoneDTO> getEntriesRemoved(ServletWebRequest request, @RequestParam(required = false) Instant since) {
+        if (httpCacheService.checkNotModified(request)) {
+            return null;
+        }
+        return service.getEntriesRemovedSince(since).stream().map(service::toDTO).collect(Collectors.toList());
+    }
+
+    @Operation(summary = "Stream of entry changes (Server-Sent Events)",
+            description = "Resume from the last received change using Last-Event-ID header or since parameter")
+    @GetMapping(path = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter getEntryChanges(@RequestHeader(name = "Last-Event-ID", required = false) String lastEventId,
+                                      @RequestParam(required = false) String since) {
+        return entryChangeService.subscribe(lastEventId != null ? lastEventId : since);
+    }
+
+    @Operation(description = "Full-text search over entries metadata with country and publisher facets")
+    @GetMapping("/search")
+    public SearchResultDTO searchEntries(ServletWebRequest request,
+                                         @RequestParam(required = false) String q,
+                                         @RequestParam(required = false) String country,
+                                         @RequestParam(required = false) String publisher,
+                                         @RequestParam(defaultValue = "all") String state,
+                                         @RequestParam(defaultValue = "0") int page,
+                                         @RequestParam(defaultValue = "20") int size) {
+        if (httpCacheService.checkNotModified(request)) {
+            return null;
+        }
+        return searchService.search(q, country, publisher, state, page, size);
+    }
+
+    @Operation(description = "Quick lookup (typeahead) of entries by URL, domain, title or publisher prefixes served from memory")
+    @GetMapping("/lookup")
+    public List<SearchHitDTO> lookupEntries(@RequestParam String q,
+                                            @RequestParam(defaultValue = "all") String state,
+                                            @RequestParam(defaultValue = "10") int limit) {
+        return entryLookupService.lookup(q, state, limit);
+    }
+
+    @GetMapping("/events")
+    public EventTimelineDTO getEntryEvents(@RequestParam String clientUrl,
+                                           @RequestParam(required = false) String before,
+                                           @RequestParam(defaultValue = "20") int size) {
+        return eventService.getEventTimeline(clientUrl, before, size);
     }
 }
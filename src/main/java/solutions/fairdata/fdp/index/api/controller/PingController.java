@@ -32,7 +32,6 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -41,6 +40,7 @@ import org.springframework.web.bind.annotation.RestController;
 import solutions.fairdata.fdp.index.api.dto.PingDTO;
 import solutions.fairdata.fdp.index.entity.events.Event;
 import solutions.fairdata.fdp.index.service.EventService;
+import solutions.fairdata.fdp.index.service.PingIngestService;
 import solutions.fairdata.fdp.index.service.WebhookService;
 
 import javax.servlet.http.HttpServletRequest;
@@ -57,6 +57,9 @@ public class PingController {
     @Autowired
     private WebhookService webhookService;
 
+    @Autowired
+    private PingIngestService pingIngestService;
+
     @Operation(
             description = "Inform about running FAIR Data Point. It is expected to send pings regularly (at least weekly). There is a rate limit set both per single IP within a period of time and per URL in message.",
             requestBody = @RequestBody(
@@ -77,14 +80,18 @@ public class PingController {
             responses = {
                 @ApiResponse(responseCode = "204", description = "Ping accepted (no content)"),
                 @ApiResponse(responseCode = "400", description = "Invalid ping format"),
+                @ApiResponse(responseCode = "413", description = "Ping payload too large"),
                 @ApiResponse(responseCode = "429", description = "Rate limit exceeded")
             }
     )
     @PostMapping
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void receivePing(HttpEntity<String> httpEntity, HttpServletRequest request) {
+    public void receivePing(HttpServletRequest request) {
         logger.info("Received ping from {}", request.getRemoteAddr());
-        final Event event = eventService.acceptIncomingPing(httpEntity, request);
+        if (pingIngestService.enqueue(request)) {
+            return;
+        }
+        final Event event = eventService.acceptIncomingPing(request);
         logger.info("Triggering metadata retrieval for {}", event.getRelatedTo().getClientUrl());
         eventService.triggerMetadataRetrieval(event);
         webhookService.triggerWebhooks(event);
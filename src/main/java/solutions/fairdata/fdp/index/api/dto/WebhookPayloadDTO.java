@@ -22,10 +22,14 @@
  */
 package solutions.fairdata.fdp.index.api.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import solutions.fairdata.fdp.index.entity.events.MetadataChange;
 import solutions.fairdata.fdp.index.entity.webhooks.WebhookEvent;
 
+import java.util.List;
+
 @Data
 @NoArgsConstructor
 public class WebhookPayloadDTO {
@@ -34,4 +38,6 @@ public class WebhookPayloadDTO {
     private String clientUrl;
     private String timestamp;
     private String secret;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<MetadataChange> changes;
 }
@@ -27,7 +27,11 @@ import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Scope;
+import solutions.fairdata.fdp.index.entity.config.ChangesConfig;
 import solutions.fairdata.fdp.index.entity.config.EventsConfig;
+import solutions.fairdata.fdp.index.entity.config.HttpCacheConfig;
+import solutions.fairdata.fdp.index.entity.config.LookupConfig;
+import solutions.fairdata.fdp.index.entity.config.WebhooksConfig;
 
 import java.time.Duration;
 
@@ -39,16 +43,116 @@ public class CustomConfig {
     public EventsConfig eventsConfig(
             @Value("${fdp-index.events.retrieval.rateLimitWait:PT10M}") String cfgRetrievalRateLimitWait,
             @Value("${fdp-index.events.retrieval.timeout:PT1M}") String cfgRetrievalTimeout,
+            @Value("${fdp-index.events.retrieval.concurrency:8}") int cfgRetrievalConcurrency,
+            @Value("${fdp-index.events.retrieval.await:false}") boolean cfgRetrievalAwait,
+            @Value("${fdp-index.events.retrieval.host.minDelay:PT1S}") String cfgRetrievalHostMinDelay,
+            @Value("${fdp-index.events.retrieval.host.maxDelay:PT5M}") String cfgRetrievalHostMaxDelay,
+            @Value("${fdp-index.events.retrieval.host.maxConnections:2}") int cfgRetrievalHostMaxConnections,
+            @Value("${fdp-index.events.retrieval.backoff.base:PT10M}") String cfgRetrievalBackoffBase,
+            @Value("${fdp-index.events.retrieval.backoff.max:P7D}") String cfgRetrievalBackoffMax,
+            @Value("${fdp-index.events.retrieval.backoff.skipDeadAfter:P30D}") String cfgRetrievalSkipDeadAfter,
+            @Value("${fdp-index.events.retrieval.adaptiveTimeout.min:PT5S}") String cfgRetrievalAdaptiveTimeoutMin,
+            @Value("${fdp-index.events.retrieval.adaptiveTimeout.factor:3.0}") double cfgRetrievalAdaptiveTimeoutFactor,
+            @Value("${fdp-index.events.retrieval.adaptiveTimeout.samples:20}") int cfgRetrievalAdaptiveTimeoutSamples,
             @Value("${fdp-index.events.ping.validDuration:P7D}") String cfgPingValidDuration,
             @Value("${fdp-index.events.ping.rateLimitDuration:PT6H}") String cfgPingRateLimitDuration,
-            @Value("${fdp-index.events.ping.rateLimitHits:10}") int cfgPingRateLimitHits
+            @Value("${fdp-index.events.ping.rateLimitHits:10}") int cfgPingRateLimitHits,
+            @Value("${fdp-index.events.ping.urlRateLimitDuration:PT1H}") String cfgPingUrlRateLimitDuration,
+            @Value("${fdp-index.events.ping.urlRateLimitHits:5}") int cfgPingUrlRateLimitHits,
+            @Value("${fdp-index.events.ping.maxBodySize:8192}") int cfgPingMaxBodySize,
+            @Value("${fdp-index.events.ping.asyncIngest:false}") boolean cfgPingAsyncIngest,
+            @Value("${fdp-index.events.ping.ingestQueueCapacity:10000}") int cfgPingIngestQueueCapacity,
+            @Value("${fdp-index.events.ping.ingestBatchSize:100}") int cfgPingIngestBatchSize
     ) {
         return EventsConfig.builder()
                 .retrievalRateLimitWait(Duration.parse(cfgRetrievalRateLimitWait))
                 .retrievalTimeout(Duration.parse(cfgRetrievalTimeout))
+                .retrievalConcurrency(cfgRetrievalConcurrency)
+                .retrievalAwait(cfgRetrievalAwait)
+                .retrievalHostMinDelay(Duration.parse(cfgRetrievalHostMinDelay))
+                .retrievalHostMaxDelay(Duration.parse(cfgRetrievalHostMaxDelay))
+                .retrievalHostMaxConnections(cfgRetrievalHostMaxConnections)
+                .retrievalBackoffBase(Duration.parse(cfgRetrievalBackoffBase))
+                .retrievalBackoffMax(Duration.parse(cfgRetrievalBackoffMax))
+                .retrievalSkipDeadAfter(Duration.parse(cfgRetrievalSkipDeadAfter))
+                .retrievalAdaptiveTimeoutMin(Duration.parse(cfgRetrievalAdaptiveTimeoutMin))
+                .retrievalAdaptiveTimeoutFactor(cfgRetrievalAdaptiveTimeoutFactor)
+                .retrievalAdaptiveTimeoutSamples(cfgRetrievalAdaptiveTimeoutSamples)
                 .pingValidDuration(Duration.parse(cfgPingValidDuration))
                 .pingRateLimitDuration(Duration.parse(cfgPingRateLimitDuration))
                 .pingRateLimitHits(cfgPingRateLimitHits)
+                .pingUrlRateLimitDuration(Duration.parse(cfgPingUrlRateLimitDuration))
+                .pingUrlRateLimitHits(cfgPingUrlRateLimitHits)
+                .pingMaxBodySize(cfgPingMaxBodySize)
+                .pingAsyncIngest(cfgPingAsyncIngest)
+                .pingIngestQueueCapacity(cfgPingIngestQueueCapacity)
+                .pingIngestBatchSize(cfgPingIngestBatchSize)
+                .build();
+    }
+
+    @Bean
+    @Scope(ConfigurableBeanFactory.SCOPE_SINGLETON)
+    public HttpCacheConfig httpCacheConfig(
+            @Value("${fdp-index.cache.maxAge:PT1M}") String cfgMaxAge,
+            @Value("${fdp-index.cache.timeBucket:PT1M}") String cfgTimeBucket,
+            @Value("${fdp-index.cache.page.enabled:true}") boolean cfgPageCacheEnabled,
+            @Value("${fdp-index.cache.page.ttl:PT10S}") String cfgPageCacheTtl,
+            @Value("${fdp-index.cache.page.size:100}") int cfgPageCacheSize
+    ) {
+        return HttpCacheConfig.builder()
+                .maxAge(Duration.parse(cfgMaxAge))
+                .timeBucket(Duration.parse(cfgTimeBucket))
+                .pageCacheEnabled(cfgPageCacheEnabled)
+                .pageCacheTtl(Duration.parse(cfgPageCacheTtl))
+                .pageCacheSize(cfgPageCacheSize)
+                .build();
+    }
+
+    @Bean
+    @Scope(ConfigurableBeanFactory.SCOPE_SINGLETON)
+    public ChangesConfig changesConfig(
+            @Value("${fdp-index.changes.bufferSize:10000}") int cfgBufferSize,
+            @Value("${fdp-index.changes.streamTimeout:PT30M}") String cfgStreamTimeout
+    ) {
+        return ChangesConfig.builder()
+                .bufferSize(cfgBufferSize)
+                .streamTimeout(Duration.parse(cfgStreamTimeout))
+                .build();
+    }
+
+    @Bean
+    @Scope(ConfigurableBeanFactory.SCOPE_SINGLETON)
+    public LookupConfig lookupConfig(
+            @Value("${fdp-index.lookup.enabled:true}") boolean cfgEnabled,
+            @Value("${fdp-index.lookup.maxResults:50}") int cfgMaxResults
+    ) {
+        return LookupConfig.builder()
+                .enabled(cfgEnabled)
+                .maxResults(cfgMaxResults)
+                .build();
+    }
+
+    @Bean
+    @Scope(ConfigurableBeanFactory.SCOPE_SINGLETON)
+    public WebhooksConfig webhooksConfig(
+            @Value("${fdp-index.webhooks.batch.window:PT30S}") String cfgBatchWindow,
+            @Value("${fdp-index.webhooks.batch.size:100}") int cfgBatchSize,
+            @Value("${fdp-index.webhooks.deliveryLog.enabled:false}") boolean cfgDeliveryLog,
+            @Value("${fdp-index.webhooks.deliveryLog.queueCapacity:10000}") int cfgDeliveryLogQueueCapacity,
+            @Value("${fdp-index.webhooks.deliveryLog.batchSize:100}") int cfgDeliveryLogBatchSize,
+            @Value("${fdp-index.webhooks.replay.interval:PT0.2S}") String cfgReplayInterval,
+            @Value("${fdp-index.webhooks.replay.pageSize:100}") int cfgReplayPageSize,
+            @Value("${fdp-index.webhooks.registryRefresh:PT1H}") String cfgRegistryRefresh
+    ) {
+        return WebhooksConfig.builder()
+                .batchWindow(Duration.parse(cfgBatchWindow))
+                .batchSize(cfgBatchSize)
+                .deliveryLog(cfgDeliveryLog)
+                .deliveryLogQueueCapacity(cfgDeliveryLogQueueCapacity)
+                .deliveryLogBatchSize(cfgDeliveryLogBatchSize)
+                .replayInterval(Duration.parse(cfgReplayInterval))
+                .replayPageSize(cfgReplayPageSize)
+                .registryRefresh(Duration.parse(cfgRegistryRefresh))
                 .build();
     }
 }
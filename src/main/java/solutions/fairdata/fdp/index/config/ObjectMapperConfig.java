@@ -24,10 +24,12 @@ package solutions.fairdata.fdp.index.config;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Scope;
+import solutions.fairdata.fdp.index.api.dto.PingDTO;
 
 @Configuration
 public class ObjectMapperConfig {
@@ -40,4 +42,10 @@ public class ObjectMapperConfig {
 
         return mapper;
     }
+
+    @Bean
+    @Scope(ConfigurableBeanFactory.SCOPE_SINGLETON)
+    public ObjectReader pingReader(ObjectMapper objectMapper) {
+        return objectMapper.readerFor(PingDTO.class);
+    }
 }
@@ -24,16 +24,32 @@ package solutions.fairdata.fdp.index.database.changelogs;
 
 import com.github.mongobee.changeset.ChangeLog;
 import com.github.mongobee.changeset.ChangeSet;
+import com.mongodb.DBRef;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
 import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import org.bson.BsonType;
 import org.bson.Document;
+import org.bson.conversions.Bson;
 import solutions.fairdata.fdp.index.entity.IndexEntry;
 import solutions.fairdata.fdp.index.entity.IndexEntryState;
+import solutions.fairdata.fdp.index.entity.RepositoryMetadata;
+import solutions.fairdata.fdp.index.utils.MetadataRetrievalUtils;
 
 import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @ChangeLog
 public class DatabaseChangeLog {
@@ -69,4 +85,255 @@ public class DatabaseChangeLog {
                 Updates.set("state", IndexEntryState.Unknown.toString())
         );
     }
+
+    @ChangeSet(order = "003", id = "addEventTimelineIndex", author = "MarekSuchanek")
+    public void addEventTimelineIndex(MongoDatabase db) {
+        MongoCollection<Document> events = db.getCollection("event");
+        events.createIndex(Indexes.compoundIndex(Indexes.ascending("relatedTo._id"), Indexes.descending("_id")));
+    }
+
+    @ChangeSet(order = "004", id = "embedEventReferences", author = "MarekSuchanek")
+    public void embedEventReferences(MongoDatabase db) {
+        MongoCollection<Document> events = db.getCollection("event");
+        MongoCollection<Document> indexEntries = db.getCollection("indexEntry");
+        Map<Object, Document> entryReferences = new HashMap<>();
+        List<WriteModel<Document>> updates = new ArrayList<>();
+        Bson filter = Filters.or(Filters.type("relatedTo.$id", BsonType.OBJECT_ID), Filters.type("triggeredBy.$id", BsonType.OBJECT_ID));
+        for (Document event : events.find(filter).projection(Projections.include("relatedTo", "triggeredBy"))) {
+            List<Bson> changes = new ArrayList<>();
+            if (event.get("relatedTo") instanceof DBRef) {
+                Object entryId = ((DBRef) event.get("relatedTo")).getId();
+                Document reference = entryReferences.computeIfAbsent(entryId, id -> {
+                    Document entry = indexEntries.find(Filters.eq("_id", id)).projection(Projections.include("clientUrl", "state")).first();
+                    return entry == null ? new Document("_id", id) : entry;
+                });
+                changes.add(Updates.set("relatedTo", reference));
+            }
+            if (event.get("triggeredBy") instanceof DBRef) {
+                Object triggerId = ((DBRef) event.get("triggeredBy")).getId();
+                Document reference = events.find(Filters.eq("_id", triggerId)).projection(Projections.include("uuid", "type")).first();
+                changes.add(Updates.set("triggeredBy", reference == null ? new Document("_id", triggerId) : reference));
+            }
+            if (changes.isEmpty()) {
+                continue;
+            }
+            updates.add(new UpdateOneModel<>(Filters.eq("_id", event.get("_id")), Updates.combine(changes)));
+            if (updates.size() >= 1000) {
+                events.bulkWrite(updates);
+                updates.clear();
+            }
+        }
+        if (!updates.isEmpty()) {
+            events.bulkWrite(updates);
+        }
+    }
+
+    @ChangeSet(order = "005", id = "addEntryChangesIndexes", author = "MarekSuchanek")
+    public void addEntryChangesIndexes(MongoDatabase db) {
+        MongoCollection<Document> indexEntries = db.getCollection("indexEntry");
+        indexEntries.createIndex(Indexes.ascending("modificationTime"));
+        indexEntries.createIndex(Indexes.ascending("lastRetrievalTime"));
+        MongoCollection<Document> tombstones = db.getCollection("indexEntryTombstone");
+        tombstones.createIndex(Indexes.ascending("removedTime"));
+    }
+
+    @ChangeSet(order = "006", id = "addMetadataTextIndex", author = "MarekSuchanek")
+    public void addMetadataTextIndex(MongoDatabase db) {
+        MongoCollection<Document> indexEntries = db.getCollection("indexEntry");
+        indexEntries.createIndex(
+                Indexes.compoundIndex(
+                        Indexes.text("currentMetadata.metadata.title"),
+                        Indexes.text("currentMetadata.metadata.description"),
+                        Indexes.text("currentMetadata.metadata.publisherName"),
+                        Indexes.text("clientUrl")
+                ),
+                new IndexOptions()
+                        .name("metadataText")
+                        .weights(new Document()
+                                .append("currentMetadata.metadata.title", 10)
+                                .append("currentMetadata.metadata.publisherName", 5)
+                                .append("currentMetadata.metadata.description", 2)
+                                .append("clientUrl", 1))
+        );
+        indexEntries.createIndex(Indexes.ascending("currentMetadata.metadata.country"));
+        indexEntries.createIndex(Indexes.ascending("currentMetadata.metadata.publisherName"));
+    }
+
+    @ChangeSet(order = "007", id = "addWebhookSignature", author = "MarekSuchanek")
+    public void addWebhookSignature(MongoDatabase db) {
+        MongoCollection<Document> webhooks = db.getCollection("webhook");
+        webhooks.updateMany(Filters.exists("signature", false), Updates.set("signature", "Sha1"));
+    }
+
+    @ChangeSet(order = "008", id = "addWebhookDeliveryIndexes", author = "MarekSuchanek")
+    public void addWebhookDeliveryIndexes(MongoDatabase db) {
+        MongoCollection<Document> deliveries = db.getCollection("webhookDelivery");
+        deliveries.createIndex(Indexes.compoundIndex(Indexes.ascending("webhookUuid"), Indexes.descending("_id")));
+        deliveries.createIndex(Indexes.ascending("eventUuid"));
+    }
+
+    @ChangeSet(order = "009", id = "addWebhookDeadLetterIndex", author = "MarekSuchanek")
+    public void addWebhookDeadLetterIndex(MongoDatabase db) {
+        MongoCollection<Document> deadLetters = db.getCollection("webhookDeadLetter");
+        deadLetters.createIndex(Indexes.compoundIndex(Indexes.ascending("webhookUuid"), Indexes.ascending("_id")));
+    }
+
+    @ChangeSet(order = "010", id = "compactRepositoryMetadata", author = "MarekSuchanek")
+    public void compactRepositoryMetadata(MongoDatabase db) {
+        MongoCollection<Document> indexEntries = db.getCollection("indexEntry");
+        compactRepositoryMetadata(indexEntries, "currentMetadata");
+        compactRepositoryMetadata(db.getCollection("event"), "metadataRetrieval.metadata");
+        for (Document index : indexEntries.listIndexes()) {
+            String name = index.getString("name");
+            if (name.equals("metadataText") || name.startsWith("currentMetadata.metadata.")) {
+                indexEntries.dropIndex(name);
+            }
+        }
+        indexEntries.createIndex(
+                Indexes.compoundIndex(
+                        Indexes.text("currentMetadata." + RepositoryMetadata.FIELD_TITLE),
+                        Indexes.text("currentMetadata." + RepositoryMetadata.FIELD_DESCRIPTION),
+                        Indexes.text("currentMetadata." + RepositoryMetadata.FIELD_PUBLISHER_NAME),
+                        Indexes.text("clientUrl")
+                ),
+                new IndexOptions()
+                        .name("metadataText")
+                        .weights(new Document()
+                                .append("currentMetadata." + RepositoryMetadata.FIELD_TITLE, 10)
+                                .append("currentMetadata." + RepositoryMetadata.FIELD_PUBLISHER_NAME, 5)
+                                .append("currentMetadata." + RepositoryMetadata.FIELD_DESCRIPTION, 2)
+                                .append("clientUrl", 1))
+        );
+        indexEntries.createIndex(Indexes.ascending("currentMetadata." + RepositoryMetadata.FIELD_COUNTRY));
+        indexEntries.createIndex(Indexes.ascending("currentMetadata." + RepositoryMetadata.FIELD_PUBLISHER_NAME));
+    }
+
+    private void compactRepositoryMetadata(MongoCollection<Document> collection, String path) {
+        Map<String, String> fields = Map.of(
+                RepositoryMetadata.KEY_TITLE, RepositoryMetadata.FIELD_TITLE,
+                RepositoryMetadata.KEY_DESCRIPTION, RepositoryMetadata.FIELD_DESCRIPTION,
+                RepositoryMetadata.KEY_VERSION, RepositoryMetadata.FIELD_VERSION,
+                RepositoryMetadata.KEY_PUBLISHER, RepositoryMetadata.FIELD_PUBLISHER,
+                RepositoryMetadata.KEY_PUBLISHER_NAME, RepositoryMetadata.FIELD_PUBLISHER_NAME,
+                RepositoryMetadata.KEY_COUNTRY, RepositoryMetadata.FIELD_COUNTRY
+        );
+        List<WriteModel<Document>> updates = new ArrayList<>();
+        for (Document document : collection.find(Filters.exists(path + ".metadata")).projection(Projections.include(path))) {
+            Document metadata = document;
+            for (String key : path.split("\\.")) {
+                metadata = metadata.get(key, Document.class);
+            }
+            Document compact = new Document()
+                    .append("v", metadata.get("metadataVersion"))
+                    .append("uri", metadata.get("repositoryUri"));
+            Document extra = new Document();
+            Document values = metadata.get("metadata", Document.class);
+            if (values != null) {
+                values.forEach((key, value) -> {
+                    if (fields.containsKey(key)) {
+                        compact.append(fields.get(key), value);
+                    } else {
+                        extra.append(key, value);
+                    }
+                });
+            }
+            compact.append(RepositoryMetadata.FIELD_EXTRA, extra);
+            updates.add(new UpdateOneModel<>(Filters.eq("_id", document.get("_id")), Updates.set(path, compact)));
+            if (updates.size() >= 1000) {
+                collection.bulkWrite(updates);
+                updates.clear();
+            }
+        }
+        if (!updates.isEmpty()) {
+            collection.bulkWrite(updates);
+        }
+    }
+
+    static final Bson SNAPSHOT_EVENTS_FILTER = Filters.exists("metadataRetrieval.metadata");
+
+    // exact reverse of the timeline index (003) so that events are not sorted in memory,
+    // events of each entry still come in ascending order
+    static final Bson SNAPSHOT_EVENTS_ORDER = Sorts.orderBy(Sorts.descending("relatedTo._id"), Sorts.ascending("_id"));
+
+    @ChangeSet(order = "011", id = "addMetadataSnapshots", author = "MarekSuchanek")
+    public void addMetadataSnapshots(MongoDatabase db) {
+        MongoCollection<Document> events = db.getCollection("event");
+        MongoCollection<Document> indexEntries = db.getCollection("indexEntry");
+        MongoCollection<Document> snapshots = db.getCollection("metadataSnapshot");
+        Map<Object, String> lastHashes = new HashMap<>();
+        List<WriteModel<Document>> updates = new ArrayList<>();
+        List<WriteModel<Document>> inserts = new ArrayList<>();
+        for (Document event : events.find(SNAPSHOT_EVENTS_FILTER).sort(SNAPSHOT_EVENTS_ORDER).projection(Projections.include("relatedTo", "metadataRetrieval.metadata"))) {
+            Document metadata = event.get("metadataRetrieval", Document.class).get("metadata", Document.class);
+            String hash = computeMetadataHash(metadata);
+            Object entryId = event.get("relatedTo", Document.class) == null ? null : event.get("relatedTo", Document.class).get("_id");
+            boolean changed = !hash.equals(lastHashes.put(entryId, hash));
+            if (changed) {
+                inserts.add(new UpdateOneModel<>(
+                        Filters.eq("_id", hash),
+                        Updates.combine(Updates.setOnInsert("metadata", metadata), Updates.setOnInsert("created", Instant.now())),
+                        new UpdateOptions().upsert(true)
+                ));
+            }
+            updates.add(new UpdateOneModel<>(Filters.eq("_id", event.get("_id")), Updates.combine(
+                    Updates.unset("metadataRetrieval.metadata"),
+                    Updates.set("metadataRetrieval.snapshot", hash),
+                    Updates.set("metadataRetrieval.changed", changed)
+            )));
+            if (updates.size() >= 1000) {
+                if (!inserts.isEmpty()) {
+                    snapshots.bulkWrite(inserts);
+                    inserts.clear();
+                }
+                events.bulkWrite(updates);
+                updates.clear();
+            }
+        }
+        if (!inserts.isEmpty()) {
+            snapshots.bulkWrite(inserts);
+        }
+        if (!updates.isEmpty()) {
+            events.bulkWrite(updates);
+            updates.clear();
+        }
+        for (Document indexEntry : indexEntries.find(Filters.exists("currentMetadata")).projection(Projections.include("currentMetadata"))) {
+            Document metadata = indexEntry.get("currentMetadata", Document.class);
+            String hash = computeMetadataHash(metadata);
+            snapshots.updateOne(
+                    Filters.eq("_id", hash),
+                    Updates.combine(Updates.setOnInsert("metadata", metadata), Updates.setOnInsert("created", Instant.now())),
+                    new UpdateOptions().upsert(true)
+            );
+            updates.add(new UpdateOneModel<>(Filters.eq("_id", indexEntry.get("_id")), Updates.set("metadataHash", hash)));
+            if (updates.size() >= 1000) {
+                indexEntries.bulkWrite(updates);
+                updates.clear();
+            }
+        }
+        if (!updates.isEmpty()) {
+            indexEntries.bulkWrite(updates);
+        }
+    }
+
+    private String computeMetadataHash(Document metadata) {
+        Map<String, String> keys = Map.of(
+                RepositoryMetadata.FIELD_TITLE, RepositoryMetadata.KEY_TITLE,
+                RepositoryMetadata.FIELD_DESCRIPTION, RepositoryMetadata.KEY_DESCRIPTION,
+                RepositoryMetadata.FIELD_VERSION, RepositoryMetadata.KEY_VERSION,
+                RepositoryMetadata.FIELD_PUBLISHER, RepositoryMetadata.KEY_PUBLISHER,
+                RepositoryMetadata.FIELD_PUBLISHER_NAME, RepositoryMetadata.KEY_PUBLISHER_NAME,
+                RepositoryMetadata.FIELD_COUNTRY, RepositoryMetadata.KEY_COUNTRY
+        );
+        Map<String, String> values = new HashMap<>();
+        keys.forEach((field, key) -> {
+            if (metadata.get(field) != null) {
+                values.put(key, metadata.getString(field));
+            }
+        });
+        Document extra = metadata.get(RepositoryMetadata.FIELD_EXTRA, Document.class);
+        if (extra != null) {
+            extra.forEach((key, value) -> values.put(key, (String) value));
+        }
+        return MetadataRetrievalUtils.computeMetadataHash(metadata.getInteger("v"), metadata.getString("uri"), values);
+    }
 }
@@ -22,15 +22,13 @@
  */
 package solutions.fairdata.fdp.index.database.repository;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
-import solutions.fairdata.fdp.index.entity.IndexEntry;
 import solutions.fairdata.fdp.index.entity.events.Event;
 import solutions.fairdata.fdp.index.entity.events.EventType;
 
-import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
 
 public interface EventRepository extends MongoRepository<Event, String> {
 
@@ -38,7 +36,5 @@ public interface EventRepository extends MongoRepository<Event, String> {
 
     List<Event> getAllByFinishedIsNull();
 
-    Page<Event> getAllByRelatedTo(IndexEntry indexEntry, Pageable pageable);
-
-    List<Event> findAllByIncomingPingExchangeRemoteAddrAndCreatedAfter(String remoteAddr, Instant after);
+    Optional<Event> findByUuid(UUID uuid);
 }
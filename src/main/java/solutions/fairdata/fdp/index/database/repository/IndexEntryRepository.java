@@ -25,18 +25,33 @@ package solutions.fairdata.fdp.index.database.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import solutions.fairdata.fdp.index.entity.IndexEntry;
 import solutions.fairdata.fdp.index.entity.IndexEntryState;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 public interface IndexEntryRepository extends MongoRepository<IndexEntry, String> {
     Optional<IndexEntry> findByClientUrl(String clientUrl);
 
-    Page<IndexEntry> findAllByStateEquals(Pageable pageable, IndexEntryState state);
-    Page<IndexEntry> findAllByStateEqualsAndLastRetrievalTimeBefore(Pageable pageable, IndexEntryState state, Instant when);
-    Page<IndexEntry> findAllByStateEqualsAndLastRetrievalTimeAfter(Pageable pageable, IndexEntryState state, Instant when);
+    // Listing queries load only fields needed for listing entries (partial entries must not be saved)
+    String LISTING_FIELDS = "{ 'clientUrl': 1, 'state': 1, 'registrationTime': 1, 'modificationTime': 1, 'lastRetrievalTime': 1 }";
+
+    @Query(value = "{}", fields = LISTING_FIELDS)
+    List<IndexEntry> findListingAll();
+    @Query(value = "{ '$or': [ { 'modificationTime': { '$gt': ?0 } }, { 'lastRetrievalTime': { '$gt': ?0 } } ] }", fields = LISTING_FIELDS)
+    List<IndexEntry> findListingChangedAfter(Instant when);
+
+    @Query(value = "{}", fields = LISTING_FIELDS)
+    Page<IndexEntry> findListingAll(Pageable pageable);
+    @Query(value = "{ 'state': ?0 }", fields = LISTING_FIELDS)
+    Page<IndexEntry> findListingByState(Pageable pageable, IndexEntryState state);
+    @Query(value = "{ 'state': ?0, 'lastRetrievalTime': { '$lt': ?1 } }", fields = LISTING_FIELDS)
+    Page<IndexEntry> findListingByStateAndLastRetrievalTimeBefore(Pageable pageable, IndexEntryState state, Instant when);
+    @Query(value = "{ 'state': ?0, 'lastRetrievalTime': { '$gt': ?1 } }", fields = LISTING_FIELDS)
+    Page<IndexEntry> findListingByStateAndLastRetrievalTimeAfter(Pageable pageable, IndexEntryState state, Instant when);
 
     long countAllByStateEquals(IndexEntryState state);
     long countAllByStateEqualsAndLastRetrievalTimeAfter(IndexEntryState state, Instant when);
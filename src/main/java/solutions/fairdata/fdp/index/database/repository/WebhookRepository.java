@@ -25,9 +25,13 @@ package solutions.fairdata.fdp.index.database.repository;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import solutions.fairdata.fdp.index.entity.webhooks.Webhook;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface WebhookRepository extends MongoRepository<Webhook, String> {
     Optional<Webhook> findByUuid(UUID uuid);
+
+    List<Webhook> findAllByUuidIn(Collection<UUID> uuids);
 }
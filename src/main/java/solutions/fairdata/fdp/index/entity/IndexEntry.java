@@ -31,6 +31,8 @@ import org.springframework.format.annotation.DateTimeFormat;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 
 @Document
 @Data
@@ -47,6 +49,13 @@ public class IndexEntry {
     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
     private Instant lastRetrievalTime;
     private RepositoryMetadata currentMetadata;
+    private String metadataHash;
+    private int failureCount;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private Instant unreachableSince;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private Instant nextRetryTime;
+    private List<Long> retrievalLatencies = new ArrayList<>();
 
     public Duration getLastRetrievalAgo() {
         if (lastRetrievalTime == null) {
@@ -23,19 +23,130 @@
 package solutions.fairdata.fdp.index.entity;
 
 import lombok.Data;
+import org.springframework.data.annotation.AccessType;
+import org.springframework.data.mongodb.core.mapping.Field;
 
+import javax.annotation.Nullable;
 import javax.validation.constraints.NotNull;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+/**
+ * Typed repository metadata with short stored field names, values repeated across
+ * many entries (publisher, country) are interned when loaded.
+ */
 @Data
+@AccessType(AccessType.Type.PROPERTY)
 public class RepositoryMetadata {
 
     public static final Integer CURRENT_VERSION = 1;
 
+    public static final String KEY_TITLE = "title";
+    public static final String KEY_DESCRIPTION = "description";
+    public static final String KEY_VERSION = "version";
+    public static final String KEY_PUBLISHER = "publisher";
+    public static final String KEY_PUBLISHER_NAME = "publisherName";
+    public static final String KEY_COUNTRY = "country";
+
+    public static final String FIELD_TITLE = "t";
+    public static final String FIELD_DESCRIPTION = "d";
+    public static final String FIELD_VERSION = "ver";
+    public static final String FIELD_PUBLISHER = "p";
+    public static final String FIELD_PUBLISHER_NAME = "pn";
+    public static final String FIELD_COUNTRY = "c";
+    public static final String FIELD_EXTRA = "x";
+
+    @Field("v")
     private Integer metadataVersion = CURRENT_VERSION;
 
+    @Field("uri")
     private String repositoryUri;
 
+    @Field(FIELD_TITLE)
+    private String title;
+
+    @Field(FIELD_DESCRIPTION)
+    private String description;
+
+    @Field(FIELD_VERSION)
+    private String version;
+
+    @Field(FIELD_PUBLISHER)
+    private String publisher;
+
+    @Field(FIELD_PUBLISHER_NAME)
+    private String publisherName;
+
+    @Field(FIELD_COUNTRY)
+    private String country;
+
     @NotNull
-    private HashMap<String, String> metadata = new HashMap<>();
+    @Field(FIELD_EXTRA)
+    private Map<String, String> extra = new HashMap<>();
+
+    public void setPublisher(String publisher) {
+        this.publisher = intern(publisher);
+    }
+
+    public void setPublisherName(String publisherName) {
+        this.publisherName = intern(publisherName);
+    }
+
+    public void setCountry(String country) {
+        this.country = intern(country);
+    }
+
+    public void put(String key, String value) {
+        switch (key) {
+            case KEY_TITLE:
+                setTitle(value);
+                break;
+            case KEY_DESCRIPTION:
+                setDescription(value);
+                break;
+            case KEY_VERSION:
+                setVersion(value);
+                break;
+            case KEY_PUBLISHER:
+                setPublisher(value);
+                break;
+            case KEY_PUBLISHER_NAME:
+                setPublisherName(value);
+                break;
+            case KEY_COUNTRY:
+                setCountry(value);
+                break;
+            default:
+                extra.put(key, value);
+        }
+    }
+
+    /**
+     * All metadata by their original keys (fixed fields first, then extension ones).
+     */
+    public Map<String, String> asMap() {
+        Map<String, String> map = new LinkedHashMap<>();
+        putIfPresent(map, KEY_TITLE, title);
+        putIfPresent(map, KEY_DESCRIPTION, description);
+        putIfPresent(map, KEY_VERSION, version);
+        putIfPresent(map, KEY_PUBLISHER, publisher);
+        putIfPresent(map, KEY_PUBLISHER_NAME, publisherName);
+        putIfPresent(map, KEY_COUNTRY, country);
+        if (extra != null) {
+            map.putAll(extra);
+        }
+        return map;
+    }
+
+    private static void putIfPresent(Map<String, String> map, String key, @Nullable String value) {
+        if (value != null) {
+            map.put(key, value);
+        }
+    }
+
+    @Nullable
+    private static String intern(@Nullable String value) {
+        return value == null ? null : value.intern();
+    }
 }
@@ -32,7 +32,24 @@ import java.time.Duration;
 public class EventsConfig {
     private final Duration retrievalRateLimitWait;
     private final Duration retrievalTimeout;
+    private final int retrievalConcurrency;
+    private final boolean retrievalAwait;
+    private final Duration retrievalHostMinDelay;
+    private final Duration retrievalHostMaxDelay;
+    private final int retrievalHostMaxConnections;
+    private final Duration retrievalBackoffBase;
+    private final Duration retrievalBackoffMax;
+    private final Duration retrievalSkipDeadAfter;
+    private final Duration retrievalAdaptiveTimeoutMin;
+    private final double retrievalAdaptiveTimeoutFactor;
+    private final int retrievalAdaptiveTimeoutSamples;
     private final Duration pingValidDuration;
     private final Duration pingRateLimitDuration;
     private final int pingRateLimitHits;
+    private final Duration pingUrlRateLimitDuration;
+    private final int pingUrlRateLimitHits;
+    private final int pingMaxBodySize;
+    private final boolean pingAsyncIngest;
+    private final int pingIngestQueueCapacity;
+    private final int pingIngestBatchSize;
 }
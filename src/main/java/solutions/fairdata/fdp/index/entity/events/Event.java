@@ -27,11 +27,12 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.index.Indexed;
-import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.format.annotation.DateTimeFormat;
 import solutions.fairdata.fdp.index.entity.IndexEntry;
+import solutions.fairdata.fdp.index.entity.IndexEntryReference;
 
 import javax.validation.constraints.NotNull;
 import java.time.Instant;
@@ -52,10 +53,11 @@ public class Event {
     @NotNull
     private Integer version;
 
-    @DBRef
-    private Event triggeredBy;
-    @DBRef
-    private IndexEntry relatedTo;
+    private EventReference triggeredBy;
+    private IndexEntryReference relatedTo;
+
+    @Transient
+    private IndexEntry relatedEntry;
 
     // Content (one of those)
     private IncomingPing incomingPing;
@@ -90,6 +92,15 @@ public class Event {
         finished = Instant.now();
     }
 
+    public void setTriggeredByEvent(Event triggerEvent) {
+        triggeredBy = triggerEvent == null ? null : EventReference.of(triggerEvent);
+    }
+
+    public void setRelatedEntry(IndexEntry indexEntry) {
+        relatedEntry = indexEntry;
+        relatedTo = indexEntry == null ? null : IndexEntryReference.of(indexEntry);
+    }
+
     public Event(Integer version, IncomingPing incomingPing) {
         this.type = EventType.IncomingPing;
         this.version = version;
@@ -99,9 +110,9 @@ public class Event {
     public Event(Integer version, Event triggerEvent, IndexEntry relatedTo, MetadataRetrieval metadataRetrieval) {
         this.type = EventType.MetadataRetrieval;
         this.version = version;
-        this.triggeredBy = triggerEvent;
-        this.relatedTo = relatedTo;
         this.metadataRetrieval = metadataRetrieval;
+        setTriggeredByEvent(triggerEvent);
+        setRelatedEntry(relatedTo);
     }
 
     public Event(Integer version, AdminTrigger adminTrigger) {
@@ -114,8 +125,17 @@ public class Event {
         this.type = EventType.WebhookTrigger;
         this.version = version;
         this.webhookTrigger = webhookTrigger;
-        this.triggeredBy = triggerEvent;
         this.relatedTo = triggerEvent.getRelatedTo();
+        this.relatedEntry = triggerEvent.getRelatedEntry();
+        setTriggeredByEvent(triggerEvent);
+    }
+
+    public Event(Integer version, WebhookTrigger webhookTrigger, EventReference triggeredBy, IndexEntryReference relatedTo) {
+        this.type = EventType.WebhookTrigger;
+        this.version = version;
+        this.webhookTrigger = webhookTrigger;
+        this.triggeredBy = triggeredBy;
+        this.relatedTo = relatedTo;
     }
 
     public Event(Integer version, WebhookPing webhookPing) {
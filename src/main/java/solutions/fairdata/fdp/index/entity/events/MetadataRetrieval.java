@@ -25,14 +25,17 @@ package solutions.fairdata.fdp.index.entity.events;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import solutions.fairdata.fdp.index.entity.RepositoryMetadata;
 import solutions.fairdata.fdp.index.entity.http.Exchange;
 
+import java.util.List;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class MetadataRetrieval {
     private String error;
     private Exchange exchange;
-    private RepositoryMetadata metadata;
+    private String snapshot;
+    private Boolean changed;
+    private List<MetadataChange> changes;
 }
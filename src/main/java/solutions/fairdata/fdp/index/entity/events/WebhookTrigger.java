@@ -30,6 +30,9 @@ import solutions.fairdata.fdp.index.entity.http.Exchange;
 import solutions.fairdata.fdp.index.entity.webhooks.Webhook;
 import solutions.fairdata.fdp.index.entity.webhooks.WebhookEvent;
 
+import java.util.List;
+import java.util.UUID;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -40,4 +43,10 @@ public class WebhookTrigger {
     private WebhookEvent matchedEvent;
 
     private Exchange exchange;
+
+    private UUID replayOf;
+
+    private UUID batchOf;
+
+    private List<MetadataChange> changes;
 }
@@ -25,10 +25,11 @@ package solutions.fairdata.fdp.index.entity.http;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.springframework.http.HttpEntity;
 
 import javax.servlet.http.HttpServletRequest;
 import java.net.http.HttpRequest;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -42,16 +43,20 @@ public class Request {
     private Map<String, List<String>> headers;
     private String body;
 
-    public void setFromHttpEntity(HttpEntity<String> httpEntity) {
-        body = httpEntity.getBody();
-        headers = httpEntity.getHeaders();
-    }
-
     public void setFromHttpServletRequest(HttpServletRequest request) {
         method = request.getMethod();
         url = request.getRequestURI();
     }
 
+    public void setFromHttpServletRequest(HttpServletRequest request, String body) {
+        setFromHttpServletRequest(request);
+        this.body = body;
+        headers = new HashMap<>();
+        for (String name : Collections.list(request.getHeaderNames())) {
+            headers.put(name, Collections.list(request.getHeaders(name)));
+        }
+    }
+
     public void setFromHttpRequest(HttpRequest request) {
         method = request.method();
         url = request.uri().toString();
@@ -51,6 +51,8 @@ public class Webhook {
 
     private String secret;
 
+    private WebhookSignature signature = WebhookSignature.HmacSha256;
+
     private boolean allEvents;
 
     private List<WebhookEvent> events = new ArrayList<>();
@@ -60,4 +62,6 @@ public class Webhook {
     private List<String> entries = new ArrayList<>();
 
     private boolean enabled;
+
+    private boolean batching;
 }
@@ -0,0 +1,89 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.entity.webhooks;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.format.annotation.DateTimeFormat;
+import solutions.fairdata.fdp.index.entity.IndexEntryReference;
+import solutions.fairdata.fdp.index.entity.events.Event;
+import solutions.fairdata.fdp.index.entity.events.EventReference;
+import solutions.fairdata.fdp.index.entity.events.MetadataChange;
+import solutions.fairdata.fdp.index.entity.http.Exchange;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@Document(collection = "webhookDeadLetter")
+public class WebhookDeadLetter {
+    @Id
+    protected ObjectId id;
+
+    private UUID webhookUuid;
+
+    private UUID eventUuid;
+
+    private WebhookEvent matchedEvent;
+
+    private EventReference triggeredBy;
+
+    private IndexEntryReference relatedTo;
+
+    private String error;
+
+    private List<MetadataChange> changes;
+
+    private int attempts = 1;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private Instant lastFailure;
+
+    public static WebhookDeadLetter of(Event event) {
+        WebhookDeadLetter deadLetter = new WebhookDeadLetter();
+        deadLetter.setWebhookUuid(event.getWebhookTrigger().getWebhook().getUuid());
+        deadLetter.setEventUuid(event.getUuid());
+        deadLetter.setMatchedEvent(event.getWebhookTrigger().getMatchedEvent());
+        deadLetter.setTriggeredBy(event.getTriggeredBy());
+        deadLetter.setRelatedTo(event.getRelatedTo());
+        deadLetter.setChanges(event.getWebhookTrigger().getChanges());
+        deadLetter.setError(describeFailure(event.getWebhookTrigger().getExchange()));
+        deadLetter.setLastFailure(Instant.now());
+        return deadLetter;
+    }
+
+    public static String describeFailure(Exchange exchange) {
+        if (exchange == null) {
+            return "Not delivered";
+        }
+        if (exchange.getError() != null) {
+            return exchange.getError();
+        }
+        return "Response code " + exchange.getResponse().getCode();
+    }
+}
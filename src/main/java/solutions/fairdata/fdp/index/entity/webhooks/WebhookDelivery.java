@@ -0,0 +1,81 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.entity.webhooks;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.format.annotation.DateTimeFormat;
+import solutions.fairdata.fdp.index.entity.events.Event;
+import solutions.fairdata.fdp.index.entity.http.Exchange;
+import solutions.fairdata.fdp.index.entity.http.ExchangeState;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@Document(collection = "webhookDelivery")
+public class WebhookDelivery {
+    @Id
+    protected ObjectId id;
+
+    private UUID eventUuid;
+
+    private UUID triggeredBy;
+
+    private UUID webhookUuid;
+
+    private WebhookEvent matchedEvent;
+
+    private String clientUrl;
+
+    private ExchangeState state;
+
+    private Integer responseCode;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private Instant executed;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private Instant finished;
+
+    public static WebhookDelivery of(Event event) {
+        WebhookDelivery delivery = new WebhookDelivery();
+        delivery.setEventUuid(event.getUuid());
+        delivery.setTriggeredBy(event.getTriggeredBy() == null ? null : event.getTriggeredBy().getUuid());
+        delivery.setWebhookUuid(event.getWebhookTrigger().getWebhook().getUuid());
+        delivery.setMatchedEvent(event.getWebhookTrigger().getMatchedEvent());
+        delivery.setClientUrl(event.getRelatedTo() == null ? null : event.getRelatedTo().getClientUrl());
+        Exchange exchange = event.getWebhookTrigger().getExchange();
+        if (exchange != null) {
+            delivery.setState(exchange.getState());
+            delivery.setResponseCode(exchange.getResponse() == null ? null : exchange.getResponse().getCode());
+        }
+        delivery.setExecuted(event.getExecuted());
+        delivery.setFinished(event.getFinished());
+        return delivery;
+    }
+}
@@ -26,6 +26,7 @@ public enum WebhookEvent {
     NewEntry,
     IncomingPing,
     EntryValid,
+    EntryChanged,
     EntryInvalid,
     EntryUnreachable,
     AdminTrigger,
@@ -0,0 +1,217 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import solutions.fairdata.fdp.index.api.dto.EntryChangeDTO;
+import solutions.fairdata.fdp.index.api.dto.IndexEntryDTO;
+import solutions.fairdata.fdp.index.entity.config.ChangesConfig;
+
+import javax.annotation.Nullable;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Service
+public class EntryChangeService {
+    private static final Logger logger = LoggerFactory.getLogger(EntryChangeService.class);
+
+    private static final String EVENT_CHANGE = "entry";
+
+    private static final String EVENT_RESET = "reset";
+
+    private final String instanceTag = Long.toHexString(Instant.now().toEpochMilli());
+
+    @Autowired
+    private ChangesConfig changesConfig;
+
+    private final Deque<EntryChangeDTO> buffer = new ArrayDeque<>();
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private long sequence = 0;
+
+    private ExecutorService senders;
+
+    @PostConstruct
+    public void startSenders() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("fdpindex-changes-");
+        threadFactory.setDaemon(true);
+        senders = Executors.newCachedThreadPool(threadFactory);
+    }
+
+    @PreDestroy
+    public void stopSenders() {
+        senders.shutdownNow();
+    }
+
+    public void publish(String type, IndexEntryDTO entry) {
+        synchronized (buffer) {
+            sequence++;
+            EntryChangeDTO change = new EntryChangeDTO(toToken(sequence), type, entry);
+            buffer.addLast(change);
+            while (buffer.size() > changesConfig.getBufferSize()) {
+                buffer.pollFirst();
+            }
+            // enqueued while holding the lock so every subscriber receives changes in sequence order
+            subscribers.forEach(subscriber -> subscriber.enqueue(changeEvent(change)));
+        }
+    }
+
+    public SseEmitter subscribe(@Nullable String resumeToken) {
+        SseEmitter emitter = new SseEmitter(changesConfig.getStreamTimeout().toMillis());
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        synchronized (buffer) {
+            boolean resumable = true;
+            List<EntryChangeDTO> missed = new ArrayList<>();
+            if (resumeToken != null) {
+                long resumeSequence = fromToken(resumeToken);
+                long oldestSequence = sequence - buffer.size() + 1;
+                if (resumeSequence < 0 || resumeSequence > sequence || resumeSequence < oldestSequence - 1) {
+                    resumable = false;
+                } else {
+                    buffer.stream().skip(resumeSequence - oldestSequence + 1).forEach(missed::add);
+                }
+            }
+            if (!resumable) {
+                logger.info("Cannot resume changes from {}, requesting reset", resumeToken);
+                subscriber.enqueue(resetEvent());
+            }
+            missed.forEach(change -> subscriber.enqueue(changeEvent(change)));
+            // replay is queued before the subscriber is visible to publish, so no change is lost, doubled or reordered
+            subscribers.add(subscriber);
+        }
+        return emitter;
+    }
+
+    public String getLatestToken() {
+        synchronized (buffer) {
+            return toToken(sequence);
+        }
+    }
+
+    private SseEmitter.SseEventBuilder changeEvent(EntryChangeDTO change) {
+        return SseEmitter.event()
+                .id(change.getToken())
+                .name(EVENT_CHANGE)
+                .data(change, MediaType.APPLICATION_JSON);
+    }
+
+    private SseEmitter.SseEventBuilder resetEvent() {
+        return SseEmitter.event()
+                .id(toToken(sequence))
+                .name(EVENT_RESET)
+                .data("Cannot resume from given token, synchronize using /entries/all");
+    }
+
+    /**
+     * Events for one client are queued and sent by a single sender task at a time, so they keep their order
+     * and a slow client does not block threads publishing changes (e.g. ping handling or metadata retrieval).
+     */
+    private class Subscriber {
+        private final SseEmitter emitter;
+
+        private final Deque<SseEmitter.SseEventBuilder> pending = new ArrayDeque<>();
+
+        private boolean sending = false;
+
+        private boolean closed = false;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void enqueue(SseEmitter.SseEventBuilder event) {
+            synchronized (pending) {
+                if (closed) {
+                    return;
+                }
+                pending.addLast(event);
+                if (sending) {
+                    return;
+                }
+                sending = true;
+            }
+            senders.execute(this::sendPending);
+        }
+
+        private void sendPending() {
+            while (true) {
+                SseEmitter.SseEventBuilder event;
+                synchronized (pending) {
+                    event = pending.pollFirst();
+                    if (event == null) {
+                        sending = false;
+                        return;
+                    }
+                }
+                try {
+                    emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    synchronized (pending) {
+                        closed = true;
+                        pending.clear();
+                        sending = false;
+                    }
+                    subscribers.remove(this);
+                    emitter.completeWithError(e);
+                    return;
+                }
+            }
+        }
+    }
+
+    private String toToken(long value) {
+        return instanceTag + "-" + value;
+    }
+
+    private long fromToken(String token) {
+        int separator = token.lastIndexOf('-');
+        if (separator < 0 || !token.substring(0, separator).equals(instanceTag)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(token.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
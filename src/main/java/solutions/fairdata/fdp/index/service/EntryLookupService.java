@@ -0,0 +1,218 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import solutions.fairdata.fdp.index.api.dto.SearchHitDTO;
+import solutions.fairdata.fdp.index.database.repository.IndexEntryRepository;
+import solutions.fairdata.fdp.index.entity.IndexEntry;
+import solutions.fairdata.fdp.index.entity.IndexEntryState;
+import solutions.fairdata.fdp.index.entity.config.EventsConfig;
+import solutions.fairdata.fdp.index.entity.config.LookupConfig;
+import solutions.fairdata.fdp.index.exceptions.NotFoundException;
+
+import javax.annotation.Nullable;
+import javax.annotation.PostConstruct;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+public class EntryLookupService {
+    private static final Logger logger = LoggerFactory.getLogger(EntryLookupService.class);
+
+    @Autowired
+    private IndexEntryRepository indexEntryRepository;
+
+    @Autowired
+    private ThreadPoolTaskExecutor executor;
+
+    @Autowired
+    private LookupConfig lookupConfig;
+
+    @Autowired
+    private EventsConfig eventsConfig;
+
+    private final Map<String, LookupEntry> entries = new ConcurrentHashMap<>();
+
+    private final NavigableMap<String, Set<String>> tokens = new ConcurrentSkipListMap<>();
+
+    public boolean isEnabled() {
+        return lookupConfig.isEnabled();
+    }
+
+    public synchronized void rebuild() {
+        if (!isEnabled()) {
+            return;
+        }
+        logger.info("Building entry lookup index");
+        entries.clear();
+        tokens.clear();
+        indexEntryRepository.findAll().forEach(this::index);
+        logger.info("Entry lookup index built ({} entries, {} tokens)", entries.size(), tokens.size());
+    }
+
+    public synchronized void update(IndexEntry entry) {
+        if (!isEnabled()) {
+            return;
+        }
+        unindex(entry.getClientUrl());
+        index(entry);
+    }
+
+    public synchronized void remove(String clientUrl) {
+        if (!isEnabled()) {
+            return;
+        }
+        unindex(clientUrl);
+    }
+
+    public List<SearchHitDTO> lookup(String query, String state, int limit) {
+        if (!isEnabled()) {
+            throw new NotFoundException("Entry lookup is disabled");
+        }
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+        // every term is matched as prefix, results are intersection for all terms
+        Set<String> matches = null;
+        for (String term : terms) {
+            Set<String> termMatches = new HashSet<>();
+            tokens.subMap(term, true, term + Character.MAX_VALUE, false).values().forEach(termMatches::addAll);
+            if (matches == null) {
+                matches = termMatches;
+            } else {
+                matches.retainAll(termMatches);
+            }
+            if (matches.isEmpty()) {
+                break;
+            }
+        }
+        Predicate<LookupEntry> stateFilter = stateFilter(state);
+        return matches.stream()
+                .map(entries::get)
+                .filter(entry -> entry != null && stateFilter.test(entry))
+                .sorted(Comparator.comparing(LookupEntry::getClientUrl))
+                .limit(Math.max(1, Math.min(limit, lookupConfig.getMaxResults())))
+                .map(LookupEntry::getHit)
+                .collect(Collectors.toList());
+    }
+
+    @PostConstruct
+    public void startRebuild() {
+        executor.submit(this::rebuild);
+    }
+
+    private void index(IndexEntry entry) {
+        LookupEntry lookupEntry = new LookupEntry(entry);
+        entries.put(entry.getClientUrl(), lookupEntry);
+        lookupEntry.tokens.forEach(token -> tokens.computeIfAbsent(token, t -> ConcurrentHashMap.newKeySet()).add(entry.getClientUrl()));
+    }
+
+    private void unindex(String clientUrl) {
+        LookupEntry lookupEntry = entries.remove(clientUrl);
+        if (lookupEntry == null) {
+            return;
+        }
+        lookupEntry.tokens.forEach(token -> tokens.computeIfPresent(token, (t, urls) -> {
+            urls.remove(clientUrl);
+            return urls.isEmpty() ? null : urls;
+        }));
+    }
+
+    private Predicate<LookupEntry> stateFilter(String state) {
+        Instant validThreshold = Instant.now().minus(eventsConfig.getPingValidDuration());
+        switch (state.toLowerCase(Locale.ROOT)) {
+            case "active":
+                return e -> e.state == IndexEntryState.Valid && e.lastRetrievalTime != null && e.lastRetrievalTime.isAfter(validThreshold);
+            case "inactive":
+                return e -> e.state == IndexEntryState.Valid && e.lastRetrievalTime != null && e.lastRetrievalTime.isBefore(validThreshold);
+            case "unreachable":
+                return e -> e.state == IndexEntryState.Unreachable;
+            case "invalid":
+                return e -> e.state == IndexEntryState.Invalid;
+            case "unknown":
+                return e -> e.state == IndexEntryState.Unknown;
+            default:
+                return e -> true;
+        }
+    }
+
+    private static List<String> tokenize(@Nullable String text) {
+        if (text == null) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(token -> !token.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    private static class LookupEntry {
+        private final SearchHitDTO hit;
+        private final IndexEntryState state;
+        private final Instant lastRetrievalTime;
+        private final Set<String> tokens = new HashSet<>();
+
+        LookupEntry(IndexEntry entry) {
+            hit = new SearchHitDTO();
+            hit.setClientUrl(entry.getClientUrl());
+            hit.setState(entry.getState().toString());
+            hit.setModificationTime(entry.getModificationTime().toString());
+            if (entry.getCurrentMetadata() != null) {
+                hit.setTitle(entry.getCurrentMetadata().getTitle());
+                hit.setPublisherName(entry.getCurrentMetadata().getPublisherName());
+                hit.setCountry(entry.getCurrentMetadata().getCountry());
+            }
+            state = entry.getState();
+            lastRetrievalTime = entry.getLastRetrievalTime();
+
+            Stream.of(entry.getClientUrl(), hit.getTitle(), hit.getPublisherName())
+                    .forEach(text -> tokens.addAll(tokenize(text)));
+        }
+
+        SearchHitDTO getHit() {
+            return hit;
+        }
+
+        String getClientUrl() {
+            return hit.getClientUrl();
+        }
+    }
+}
@@ -22,48 +22,69 @@
  */
 package solutions.fairdata.fdp.index.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.SneakyThrows;
-import org.eclipse.rdf4j.util.iterators.EmptyIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
-import org.springframework.http.HttpEntity;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import solutions.fairdata.fdp.index.api.dto.EventSummaryDTO;
+import solutions.fairdata.fdp.index.api.dto.EventTimelineDTO;
 import solutions.fairdata.fdp.index.api.dto.PingDTO;
 import solutions.fairdata.fdp.index.database.repository.EventRepository;
-import solutions.fairdata.fdp.index.database.repository.IndexEntryRepository;
 import solutions.fairdata.fdp.index.entity.IndexEntry;
 import solutions.fairdata.fdp.index.entity.IndexEntryState;
 import solutions.fairdata.fdp.index.entity.config.EventsConfig;
 import solutions.fairdata.fdp.index.entity.events.Event;
 import solutions.fairdata.fdp.index.entity.events.EventType;
+import solutions.fairdata.fdp.index.entity.events.MetadataChange;
 import solutions.fairdata.fdp.index.entity.http.Exchange;
 import solutions.fairdata.fdp.index.entity.http.ExchangeState;
+import solutions.fairdata.fdp.index.exceptions.BadRequestException;
 import solutions.fairdata.fdp.index.exceptions.IncorrectPingFormatException;
 import solutions.fairdata.fdp.index.exceptions.NotFoundException;
-import solutions.fairdata.fdp.index.exceptions.RateLimitException;
 import solutions.fairdata.fdp.index.utils.AdminTriggerUtils;
 import solutions.fairdata.fdp.index.utils.IncomingPingUtils;
 import solutions.fairdata.fdp.index.utils.MetadataRetrievalUtils;
 
+import javax.annotation.Nullable;
 import javax.annotation.PostConstruct;
 import javax.servlet.http.HttpServletRequest;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validator;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 @Service
 public class EventService {
     private static final Logger logger = LoggerFactory.getLogger(EventService.class);
 
+    private static final int TIMELINE_MAX_SIZE = 100;
+
+    private static final List<String> TIMELINE_FIELDS = List.of(
+            "type", "uuid", "created", "executed", "finished",
+            "incomingPing.exchange.state", "incomingPing.exchange.error", "incomingPing.exchange.response.code",
+            "metadataRetrieval.error", "metadataRetrieval.exchange.state", "metadataRetrieval.exchange.error", "metadataRetrieval.exchange.response.code",
+            "webhookTrigger.exchange.state", "webhookTrigger.exchange.error", "webhookTrigger.exchange.response.code"
+    );
+
     @Autowired
-    private ObjectMapper objectMapper;
+    private ObjectReader pingReader;
 
     @Autowired
     private ThreadPoolTaskExecutor executor;
@@ -71,9 +92,6 @@ public class EventService {
     @Autowired
     private EventRepository eventRepository;
 
-    @Autowired
-    private IndexEntryRepository indexEntryRepository;
-
     @Autowired
     private IndexEntryService indexEntryService;
 
@@ -83,119 +101,260 @@ public class EventService {
     @Autowired
     private EventsConfig eventsConfig;
 
-    public Iterable<Event> getEvents(IndexEntry indexEntry) {
-        // TODO: make events pagination in the future
-        return eventRepository.getAllByRelatedTo(indexEntry, PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "created")));
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private PingRateLimitService pingRateLimitService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RetrievalSchedulerService retrievalSchedulerService;
+
+    @Autowired
+    private MetadataSnapshotService metadataSnapshotService;
+
+    private final Set<String> runningRetrievals = ConcurrentHashMap.newKeySet();
+
+    public EventTimelineDTO getEventTimeline(String clientUrl, @Nullable String before, int size) {
+        Optional<IndexEntry> entry = indexEntryService.findEntry(clientUrl);
+        if (entry.isEmpty()) {
+            return new EventTimelineDTO(List.of(), null);
+        }
+        Criteria criteria = Criteria.where("relatedTo.id").is(entry.get().getId());
+        if (before != null) {
+            if (!ObjectId.isValid(before)) {
+                throw new BadRequestException("Invalid events cursor: " + before);
+            }
+            criteria = criteria.and("_id").lt(new ObjectId(before));
+        }
+        int limit = Math.max(1, Math.min(size, TIMELINE_MAX_SIZE));
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "_id"))
+                .limit(limit + 1);
+        TIMELINE_FIELDS.forEach(query.fields()::include);
+        List<Event> events = mongoTemplate.find(query, Event.class);
+        String nextBefore = null;
+        if (events.size() > limit) {
+            events = events.subList(0, limit);
+            nextBefore = events.get(limit - 1).getId().toHexString();
+        }
+        return new EventTimelineDTO(events.stream().map(this::toSummaryDTO).collect(Collectors.toList()), nextBefore);
     }
 
-    public Iterable<Event> getEvents(String clientUrl) {
-        return indexEntryService.findEntry(clientUrl).map(this::getEvents).orElse(EmptyIterator::new);
+    /**
+     * Latest event related to the entry, only its identifier and finish time are loaded.
+     */
+    public Optional<Event> getLatestEvent(IndexEntry entry) {
+        Query query = Query.query(Criteria.where("relatedTo.id").is(entry.getId()))
+                .with(Sort.by(Sort.Direction.DESC, "_id"));
+        query.fields().include("_id").include("finished");
+        return Optional.ofNullable(mongoTemplate.findOne(query, Event.class));
     }
 
-    @SneakyThrows
-    public Event acceptIncomingPing(HttpEntity<String> httpEntity, HttpServletRequest request) {
-        var remoteAddr = request.getRemoteAddr();
-        var rateLimitSince = Instant.now().minus(eventsConfig.getPingRateLimitDuration());
-        var previousPings = eventRepository.findAllByIncomingPingExchangeRemoteAddrAndCreatedAfter(remoteAddr, rateLimitSince);
-        if (previousPings.size() > eventsConfig.getPingRateLimitHits()) {
-            logger.warn("Rate limit for PING reached by {}", remoteAddr);
-            throw new RateLimitException(String.format(
-                    "Rate limit reached for %s (max. %d per %s) - PING ignored",
-                    remoteAddr, eventsConfig.getPingRateLimitHits(), eventsConfig.getPingRateLimitDuration().toString())
-            );
+    public EventSummaryDTO toSummaryDTO(Event event) {
+        EventSummaryDTO dto = new EventSummaryDTO();
+        dto.setId(event.getId().toHexString());
+        dto.setUuid(event.getUuid().toString());
+        dto.setType(event.getType().toString());
+        dto.setCreated(event.getCreated().toString());
+        dto.setExecuted(event.getExecuted() == null ? null : event.getExecuted().toString());
+        dto.setFinished(event.getFinished() == null ? null : event.getFinished().toString());
+        Exchange exchange = null;
+        if (event.getIncomingPing() != null) {
+            exchange = event.getIncomingPing().getExchange();
+        } else if (event.getMetadataRetrieval() != null) {
+            exchange = event.getMetadataRetrieval().getExchange();
+            dto.setError(event.getMetadataRetrieval().getError());
+        } else if (event.getWebhookTrigger() != null) {
+            exchange = event.getWebhookTrigger().getExchange();
         }
+        if (exchange != null) {
+            dto.setState(exchange.getState() == null ? null : exchange.getState().toString());
+            dto.setResponseCode(exchange.getResponse() == null ? null : exchange.getResponse().getCode());
+            if (dto.getError() == null) {
+                dto.setError(exchange.getError());
+            }
+        }
+        return dto;
+    }
 
-        var event = IncomingPingUtils.prepareEvent(httpEntity, request);
-        eventRepository.save(event);
-        event.execute();
+    public Optional<IndexEntry> resolveRelatedEntry(Event event) {
+        if (event.getRelatedEntry() == null && event.getRelatedTo() != null) {
+            indexEntryService.findEntry(event.getRelatedTo().getId()).ifPresent(event::setRelatedEntry);
+        }
+        return Optional.ofNullable(event.getRelatedEntry());
+    }
+
+    public Optional<Event> resolveTriggeredBy(Event event) {
+        if (event.getTriggeredBy() == null) {
+            return Optional.empty();
+        }
+        return eventRepository.findByUuid(event.getTriggeredBy().getUuid());
+    }
+
+    public byte[] readIncomingPing(HttpServletRequest request) {
+        pingRateLimitService.checkRemoteAddr(request.getRemoteAddr());
+        return IncomingPingUtils.readBody(request, eventsConfig.getPingMaxBodySize());
+    }
+
+    public PingDTO parseIncomingPing(byte[] body) {
+        PingDTO pingDTO;
         try {
-            var pingDTO = objectMapper.readValue(httpEntity.getBody(), PingDTO.class);
-            var indexEntry = indexEntryService.storeEntry(pingDTO);
-            event.getIncomingPing().setNewEntry(indexEntry.getRegistrationTime().equals(indexEntry.getModificationTime()));
-            event.getIncomingPing().getExchange().getResponse().setCode(204);
-            event.setRelatedTo(indexEntry);
-            logger.info("Accepted incoming ping as a new event");
+            pingDTO = pingReader.readValue(body);
+            var violations = validator.validate(pingDTO);
+            if (!violations.isEmpty()) {
+                throw new ConstraintViolationException(violations);
+            }
         } catch (Exception e) {
-            var ex = new IncorrectPingFormatException("Could not parse PING: " + e.getMessage());
-            event.getIncomingPing().getExchange().getResponse().setCode(400);
-            event.getIncomingPing().getExchange().getResponse().setBody(objectMapper.writeValueAsString(ex.getErrorDTO()));
-            event.setFinished(Instant.now());
-            eventRepository.save(event);
             logger.info("Incoming ping has incorrect format: {}", e.getMessage());
-            throw ex;
+            throw new IncorrectPingFormatException("Could not parse PING: " + e.getMessage());
         }
-        event.setFinished(Instant.now());
+        pingRateLimitService.checkClientUrl(pingDTO.getClientUrl());
+        return pingDTO;
+    }
+
+    public Event processIncomingPing(Event event, PingDTO pingDTO) {
+        event.execute();
+        var stored = indexEntryService.storeEntry(pingDTO);
+        event.getIncomingPing().setNewEntry(stored.isNewEntry());
+        event.getIncomingPing().getExchange().getResponse().setCode(204);
+        event.setRelatedEntry(stored.getEntry());
+        event.finish();
+        return event;
+    }
+
+    public Event acceptIncomingPing(HttpServletRequest request) {
+        var body = readIncomingPing(request);
+        var pingDTO = parseIncomingPing(body);
+        var event = IncomingPingUtils.prepareEvent(body, request);
+        processIncomingPing(event, pingDTO);
+        logger.info("Accepted incoming ping as a new event");
         return eventRepository.save(event);
     }
 
     private void processMetadataRetrieval(Event event) {
-        String clientUrl = event.getRelatedTo().getClientUrl();
+        IndexEntry entry = resolveRelatedEntry(event).orElseThrow(
+                () -> new NotFoundException("There is no such entry: " + event.getRelatedTo().getClientUrl())
+        );
+        String clientUrl = entry.getClientUrl();
+        IndexEntryState previousState = entry.getState();
+        boolean previouslyActive = indexEntryService.isActive(entry);
         if (MetadataRetrievalUtils.shouldRetrieve(event, eventsConfig.getRetrievalRateLimitWait())) {
-            indexEntryRepository.save(event.getRelatedTo());
+            indexEntryService.saveEntry(entry, false);
             eventRepository.save(event);
             event.execute();
 
             logger.info("Retrieving metadata for {}", clientUrl);
-            MetadataRetrievalUtils.retrieveRepositoryMetadata(event, eventsConfig.getRetrievalTimeout());
+            Duration timeout = MetadataRetrievalUtils.retrievalTimeout(entry, eventsConfig);
+            Instant started = Instant.now();
+            MetadataRetrievalUtils.retrieveRepositoryMetadata(event, timeout);
+            retrievalSchedulerService.recordResponse(clientUrl, event.getMetadataRetrieval().getExchange().getResponse());
             Exchange ex = event.getMetadataRetrieval().getExchange();
             if (ex.getState() == ExchangeState.Retrieved) {
+                MetadataRetrievalUtils.recordRetrievalSuccess(entry, Duration.between(started, Instant.now()), eventsConfig);
                 try {
                     logger.info("Parsing metadata for {}", clientUrl);
                     var metadata = MetadataRetrievalUtils.parseRepositoryMetadata(ex.getResponse().getBody());
                     if (metadata.isPresent()) {
-                        event.getMetadataRetrieval().setMetadata(metadata.get());
-                        event.getRelatedTo().setCurrentMetadata(metadata.get());
-                        event.getRelatedTo().setState(IndexEntryState.Valid);
-                        logger.info("Storing metadata for {}", clientUrl);
-                        indexEntryRepository.save(event.getRelatedTo());
+                        String hash = MetadataRetrievalUtils.computeMetadataHash(metadata.get());
+                        event.getMetadataRetrieval().setSnapshot(hash);
+                        event.getMetadataRetrieval().setChanged(false);
+                        entry.setState(IndexEntryState.Valid);
+                        if (!hash.equals(entry.getMetadataHash())) {
+                            logger.info("Storing metadata for {}", clientUrl);
+                            List<MetadataChange> changes = MetadataRetrievalUtils.diffMetadata(entry.getCurrentMetadata(), metadata.get());
+                            event.getMetadataRetrieval().setChanges(changes);
+                            event.getMetadataRetrieval().setChanged(!changes.isEmpty());
+                            metadataSnapshotService.storeSnapshot(hash, metadata.get());
+                            entry.setCurrentMetadata(metadata.get());
+                            entry.setMetadataHash(hash);
+                        } else {
+                            logger.info("Metadata unchanged for {}", clientUrl);
+                            ex.getResponse().setBody(null);
+                        }
                     } else {
                         logger.info("Repository not found in metadata for {}", clientUrl);
-                        event.getRelatedTo().setState(IndexEntryState.Invalid);
+                        entry.setState(IndexEntryState.Invalid);
                         event.getMetadataRetrieval().setError("Repository not found in metadata");
                     }
                 } catch (Exception e) {
                     logger.info("Cannot parse metadata for {}", clientUrl);
-                    event.getRelatedTo().setState(IndexEntryState.Invalid);
+                    entry.setState(IndexEntryState.Invalid);
                     event.getMetadataRetrieval().setError("Cannot parse metadata");
                 }
             } else {
-                event.getRelatedTo().setState(IndexEntryState.Unreachable);
-                logger.info("Cannot retrieve metadata for {}: {}", clientUrl, ex.getError());
+                entry.setState(IndexEntryState.Unreachable);
+                MetadataRetrievalUtils.recordRetrievalFailure(entry, eventsConfig);
+                logger.info("Cannot retrieve metadata for {} (failure {}, next retry after {}): {}",
+                        clientUrl, entry.getFailureCount(), entry.getNextRetryTime(), ex.getError());
             }
         } else {
             logger.info("Rate limit reached for {} (skipping metadata retrieval)", clientUrl);
             event.getMetadataRetrieval().setError("Rate limit reached (skipping)");
         }
-        event.getRelatedTo().setLastRetrievalTime(Instant.now());
+        entry.setLastRetrievalTime(Instant.now());
         event.finish();
-        event = eventRepository.save(event);
-        indexEntryRepository.save(event.getRelatedTo());
-        webhookService.triggerWebhooks(event);
+        event.setRelatedEntry(entry);
+        Event savedEvent = eventRepository.save(event);
+        // entries crossing the active threshold are published as well, mirrors would show them inactive otherwise
+        boolean changed = entry.getState() != previousState
+                || indexEntryService.isActive(entry) != previouslyActive
+                || Boolean.TRUE.equals(event.getMetadataRetrieval().getChanged());
+        indexEntryService.saveEntry(entry, changed);
+        webhookService.triggerWebhooks(savedEvent);
+    }
+
+    private void processMetadataRetrievalOnce(Event event) {
+        String clientUrl = event.getRelatedTo().getClientUrl();
+        if (!runningRetrievals.add(clientUrl)) {
+            // the running retrieval stores the result, no need to wait for it
+            logger.info("Metadata retrieval for {} already running, skipping", clientUrl);
+            event.getMetadataRetrieval().setError("Retrieval already running (skipped)");
+            event.finish();
+            eventRepository.save(event);
+            return;
+        }
+        try {
+            processMetadataRetrieval(event);
+        } finally {
+            runningRetrievals.remove(clientUrl);
+        }
     }
 
     @Async
     public void triggerMetadataRetrieval(Event triggerEvent) {
         logger.info("Initiating metadata retrieval triggered by {}", triggerEvent.getUuid());
-        Iterable<Event> events = MetadataRetrievalUtils.prepareEvents(triggerEvent, indexEntryService);
-        for (Event event: events) {
+        Iterable<Event> events = MetadataRetrievalUtils.prepareEvents(triggerEvent, indexEntryService, eventsConfig);
+        CompletableFuture<Void> retrievals = submitMetadataRetrievals(events)
+                .whenComplete((result, error) -> logger.info("Finished metadata retrieval triggered by {}", triggerEvent.getUuid()));
+        if (eventsConfig.isRetrievalAwait()) {
+            retrievals.join();
+        }
+    }
+
+    private CompletableFuture<Void> submitMetadataRetrievals(Iterable<Event> events) {
+        return retrievalSchedulerService.submitAll(events, event -> {
             logger.info("Triggering metadata retrieval for {} as {}", event.getRelatedTo().getClientUrl(), event.getUuid());
             try {
-                processMetadataRetrieval(event);
+                processMetadataRetrievalOnce(event);
             } catch (Exception e) {
                 logger.error("Failed to retrieve metadata: {}", e.getMessage());
             }
-        }
-        logger.info("Finished metadata retrieval triggered by {}", triggerEvent.getUuid());
+        });
     }
 
     private void resumeUnfinishedEvents() {
         logger.info("Resuming unfinished events");
+        List<Event> retrievals = new ArrayList<>();
         for (Event event : eventRepository.getAllByFinishedIsNull()) {
             logger.info("Resuming event {}", event.getUuid());
 
             try {
                 if (event.getType() == EventType.MetadataRetrieval) {
-                    processMetadataRetrieval(event);
+                    retrievals.add(event);
                 } else if (event.getType() == EventType.WebhookTrigger) {
                     webhookService.processWebhookTrigger(event);
                 } else {
@@ -205,6 +364,8 @@ public class EventService {
                 logger.error("Failed to resume event {}: {}", event.getUuid(), e.getMessage());
             }
         }
+        // retrievals are paced per host as well
+        submitMetadataRetrievals(retrievals).join();
         logger.info("Finished unfinished events");
     }
 
@@ -221,7 +382,7 @@ public class EventService {
             if (entry.isEmpty()) {
                 throw new NotFoundException("There is no such entry: " + clientUrl);
             }
-            event.setRelatedTo(entry.get());
+            event.setRelatedEntry(entry.get());
         }
         event.finish();
         return eventRepository.save(event);
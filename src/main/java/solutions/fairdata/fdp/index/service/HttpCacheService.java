@@ -0,0 +1,83 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+import solutions.fairdata.fdp.index.entity.config.HttpCacheConfig;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class HttpCacheService {
+
+    private final String instanceTag = Long.toHexString(Instant.now().toEpochMilli());
+
+    @Autowired
+    private IndexEntryService indexEntryService;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private HttpCacheConfig httpCacheConfig;
+
+    public String getETag() {
+        // entries become inactive over time, so the tag also changes with time bucket
+        long bucket = Instant.now().toEpochMilli() / httpCacheConfig.getTimeBucket().toMillis();
+        return String.format("\"%s-%x-%x\"", instanceTag, indexEntryService.getIndexVersion(), bucket);
+    }
+
+    public String getEntryETag(String clientUrl) {
+        // events of the entry (e.g. webhook triggers) are shown on its page but do not change the index version
+        String latestEvent = indexEntryService.findEntry(clientUrl)
+                .flatMap(eventService::getLatestEvent)
+                .map(event -> String.format("%s-%x", event.getId().toHexString(), event.getFinished() == null ? 0 : event.getFinished().toEpochMilli()))
+                .orElse("0");
+        String etag = getETag();
+        return etag.substring(0, etag.length() - 1) + "-" + latestEvent + "\"";
+    }
+
+    public CacheControl getCacheControl() {
+        return CacheControl.maxAge(httpCacheConfig.getMaxAge().toSeconds(), TimeUnit.SECONDS).cachePublic();
+    }
+
+    public boolean checkNotModified(ServletWebRequest request) {
+        return checkNotModified(request, getETag());
+    }
+
+    public boolean checkEntryNotModified(ServletWebRequest request, String clientUrl) {
+        return checkNotModified(request, getEntryETag(clientUrl));
+    }
+
+    private boolean checkNotModified(ServletWebRequest request, String etag) {
+        if (request.getResponse() != null) {
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, getCacheControl().getHeaderValue());
+        }
+        return request.checkNotModified(etag);
+    }
+}
@@ -22,82 +22,208 @@
  */
 package solutions.fairdata.fdp.index.service;
 
+import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 import solutions.fairdata.fdp.index.api.dto.IndexEntryDTO;
+import solutions.fairdata.fdp.index.api.dto.IndexEntryTombstoneDTO;
 import solutions.fairdata.fdp.index.api.dto.PingDTO;
 import solutions.fairdata.fdp.index.database.repository.IndexEntryRepository;
+import solutions.fairdata.fdp.index.database.repository.IndexEntryTombstoneRepository;
 import solutions.fairdata.fdp.index.entity.IndexEntry;
 import solutions.fairdata.fdp.index.entity.IndexEntryState;
+import solutions.fairdata.fdp.index.entity.IndexEntryStoreResult;
+import solutions.fairdata.fdp.index.entity.IndexEntryTombstone;
 import solutions.fairdata.fdp.index.entity.config.EventsConfig;
+import solutions.fairdata.fdp.index.exceptions.NotFoundException;
 
+import javax.annotation.Nullable;
 import javax.validation.Valid;
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 @Validated
 public class IndexEntryService {
     private static final Logger logger = LoggerFactory.getLogger(IndexEntryService.class);
 
+    private static final String CHANGE_REGISTERED = "Registered";
+
+    private static final String CHANGE_UPDATED = "Updated";
+
+    private static final String CHANGE_REMOVED = "Removed";
+
     @Autowired
     private IndexEntryRepository repository;
 
+    @Autowired
+    private IndexEntryTombstoneRepository tombstoneRepository;
+
     @Autowired
     private EventsConfig eventsConfig;
 
-    public IndexEntry storeEntry(@Valid PingDTO pingDTO) {
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private EntryChangeService entryChangeService;
+
+    @Autowired
+    private EntryLookupService entryLookupService;
+
+    private final AtomicLong indexVersion = new AtomicLong();
+
+    public long getIndexVersion() {
+        return indexVersion.get();
+    }
+
+    public IndexEntry saveEntry(IndexEntry indexEntry) {
+        return saveEntry(indexEntry, true);
+    }
+
+    /**
+     * Saves the entry, it is published to the change feed only when {@code changed} is set
+     * so that bookkeeping updates (e.g. retrieval times) do not flood subscribers.
+     */
+    public IndexEntry saveEntry(IndexEntry indexEntry, boolean changed) {
+        IndexEntry saved = repository.save(indexEntry);
+        if (changed) {
+            entryChanged(CHANGE_UPDATED, saved);
+        } else {
+            entryTouched(saved);
+        }
+        return saved;
+    }
+
+    public IndexEntryStoreResult storeEntry(@Valid PingDTO pingDTO) {
         var clientUrl = pingDTO.getClientUrl();
-        var entity = repository.findByClientUrl(clientUrl);
         var now = Instant.now();
+        var newId = new ObjectId();
+        var query = new Query(Criteria.where("clientUrl").is(clientUrl));
+        var update = new Update()
+                .set("modificationTime", now)
+                .setOnInsert("_id", newId)
+                .setOnInsert("registrationTime", now)
+                .setOnInsert("state", IndexEntryState.Unknown);
 
-        final IndexEntry entry;
-        if (entity.isPresent()) {
-            logger.info("Updating timestamp of existing entry {}", clientUrl);
-            entry = entity.orElseThrow();
-        } else {
-            logger.info("Storing new entry {}", clientUrl);
-            entry = new IndexEntry();
-            entry.setClientUrl(clientUrl);
-            entry.setRegistrationTime(now);
+        IndexEntry previous;
+        try {
+            previous = upsertEntry(query, update);
+        } catch (DuplicateKeyException e) {
+            // concurrent upsert of the same new URL, the entry exists now
+            previous = upsertEntry(query, update);
         }
 
+        if (previous != null) {
+            logger.info("Updated timestamp of existing entry {}", clientUrl);
+            previous.setModificationTime(now);
+            entryChanged(CHANGE_UPDATED, previous);
+            return new IndexEntryStoreResult(previous, false);
+        }
+        logger.info("Stored new entry {}", clientUrl);
+        var entry = new IndexEntry();
+        entry.setId(newId);
+        entry.setClientUrl(clientUrl);
+        entry.setRegistrationTime(now);
         entry.setModificationTime(now);
-        return repository.save(entry);
+        entryChanged(CHANGE_REGISTERED, entry);
+        return new IndexEntryStoreResult(entry, true);
+    }
+
+    private IndexEntry upsertEntry(Query query, Update update) {
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().upsert(true).returnNew(false), IndexEntry.class);
     }
 
     public Iterable<IndexEntry> getAllEntries() {
         return repository.findAll();
     }
 
+    /**
+     * Entries with fields used for listing only (for {@link #toDTO(IndexEntry)} and entry tables).
+     */
+    public List<IndexEntry> getAllEntriesListing() {
+        return repository.findListingAll();
+    }
+
+    public List<IndexEntry> getEntriesChangedSince(Instant since) {
+        return repository.findListingChangedAfter(since);
+    }
+
+    public List<IndexEntryTombstone> getEntriesRemovedSince(@Nullable Instant since) {
+        Sort sort = Sort.by(Sort.Direction.ASC, "removedTime");
+        if (since == null) {
+            return tombstoneRepository.findAll(sort);
+        }
+        return tombstoneRepository.findAllByRemovedTimeAfter(since, sort);
+    }
+
+    public void removeEntry(String clientUrl) {
+        IndexEntry entry = findEntry(clientUrl).orElseThrow(() -> new NotFoundException("There is no such entry: " + clientUrl));
+        repository.delete(entry);
+        tombstoneRepository.save(new IndexEntryTombstone(null, clientUrl, Instant.now()));
+        entryChanged(CHANGE_REMOVED, entry);
+        logger.info("Removed entry {}", clientUrl);
+    }
+
+    private void entryTouched(IndexEntry entry) {
+        indexVersion.incrementAndGet();
+        entryLookupService.update(entry);
+    }
+
+    private void entryChanged(String changeType, IndexEntry entry) {
+        indexVersion.incrementAndGet();
+        if (changeType.equals(CHANGE_REMOVED)) {
+            entryLookupService.remove(entry.getClientUrl());
+        } else {
+            entryLookupService.update(entry);
+        }
+        entryChangeService.publish(changeType, toDTO(entry));
+    }
+
+    /**
+     * Page of entries with fields used for listing only.
+     */
     public Page<IndexEntry> getEntriesPage(Pageable pageable, String state) {
         if (state.equalsIgnoreCase("active")) {
-            return repository.findAllByStateEqualsAndLastRetrievalTimeAfter(pageable, IndexEntryState.Valid, getValidThreshold());
+            return repository.findListingByStateAndLastRetrievalTimeAfter(pageable, IndexEntryState.Valid, getValidThreshold());
         }
         if (state.equalsIgnoreCase("inactive")) {
-            return repository.findAllByStateEqualsAndLastRetrievalTimeBefore(pageable, IndexEntryState.Valid, getValidThreshold());
+            return repository.findListingByStateAndLastRetrievalTimeBefore(pageable, IndexEntryState.Valid, getValidThreshold());
         }
         if (state.equalsIgnoreCase("unreachable")) {
-            return repository.findAllByStateEquals(pageable, IndexEntryState.Unreachable);
+            return repository.findListingByState(pageable, IndexEntryState.Unreachable);
         }
         if (state.equalsIgnoreCase("invalid")) {
-            return repository.findAllByStateEquals(pageable, IndexEntryState.Invalid);
+            return repository.findListingByState(pageable, IndexEntryState.Invalid);
         }
         if (state.equalsIgnoreCase("unknown")) {
-            return repository.findAllByStateEquals(pageable, IndexEntryState.Unknown);
+            return repository.findListingByState(pageable, IndexEntryState.Unknown);
         }
-        return repository.findAll(pageable);
+        return repository.findListingAll(pageable);
     }
 
     public Optional<IndexEntry> findEntry(String clientUrl) {
         return repository.findByClientUrl(clientUrl);
     }
 
+    public Optional<IndexEntry> findEntry(ObjectId id) {
+        return repository.findById(id.toHexString());
+    }
+
     public IndexEntryDTO toDTO(IndexEntry indexEntry) {
         IndexEntryDTO dto = new IndexEntryDTO();
         dto.setClientUrl(indexEntry.getClientUrl());
@@ -107,6 +233,13 @@ public class IndexEntryService {
         return dto;
     }
 
+    public IndexEntryTombstoneDTO toDTO(IndexEntryTombstone tombstone) {
+        IndexEntryTombstoneDTO dto = new IndexEntryTombstoneDTO();
+        dto.setClientUrl(tombstone.getClientUrl());
+        dto.setRemovedTime(tombstone.getRemovedTime().toString());
+        return dto;
+    }
+
     public long countAllEntries() {
         return repository.count();
     }
@@ -131,6 +264,12 @@ public class IndexEntryService {
         return repository.countAllByStateEquals(IndexEntryState.Unknown);
     }
 
+    public boolean isActive(IndexEntry indexEntry) {
+        return indexEntry.getState() == IndexEntryState.Valid
+                && indexEntry.getLastRetrievalTime() != null
+                && indexEntry.getLastRetrievalTime().isAfter(getValidThreshold());
+    }
+
     private Instant getValidThreshold() {
         return Instant.now().minus(eventsConfig.getPingValidDuration());
     }
@@ -0,0 +1,62 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import solutions.fairdata.fdp.index.database.repository.MetadataSnapshotRepository;
+import solutions.fairdata.fdp.index.entity.MetadataSnapshot;
+import solutions.fairdata.fdp.index.entity.RepositoryMetadata;
+import solutions.fairdata.fdp.index.utils.MetadataRetrievalUtils;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Service
+public class MetadataSnapshotService {
+    @Autowired
+    private MetadataSnapshotRepository metadataSnapshotRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    public Optional<MetadataSnapshot> getSnapshot(String hash) {
+        return metadataSnapshotRepository.findById(hash);
+    }
+
+    /**
+     * Stores the metadata under its content hash, an already existing snapshot is left untouched
+     * so the same metadata retrieved by any number of events is stored only once. The hash is the one
+     * computed by {@link MetadataRetrievalUtils#computeMetadataHash(RepositoryMetadata)}.
+     */
+    public void storeSnapshot(String hash, RepositoryMetadata metadata) {
+        Update update = new Update()
+                .setOnInsert("metadata", metadata)
+                .setOnInsert("created", Instant.now());
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(hash)), update, MetadataSnapshot.class);
+    }
+}
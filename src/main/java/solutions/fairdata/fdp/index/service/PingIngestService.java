@@ -0,0 +1,144 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import solutions.fairdata.fdp.index.api.dto.PingDTO;
+import solutions.fairdata.fdp.index.database.repository.EventRepository;
+import solutions.fairdata.fdp.index.entity.config.EventsConfig;
+import solutions.fairdata.fdp.index.entity.events.Event;
+import solutions.fairdata.fdp.index.utils.BatchingConsumer;
+import solutions.fairdata.fdp.index.utils.IncomingPingUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class PingIngestService {
+    private static final Logger logger = LoggerFactory.getLogger(PingIngestService.class);
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private WebhookService webhookService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private EventsConfig eventsConfig;
+
+    private BatchingConsumer<AcceptedPing> consumer;
+
+    public boolean isEnabled() {
+        return eventsConfig.isPingAsyncIngest();
+    }
+
+    public boolean enqueue(HttpServletRequest request) {
+        if (!isEnabled()) {
+            return false;
+        }
+        var body = eventService.readIncomingPing(request);
+        var pingDTO = eventService.parseIncomingPing(body);
+        var ping = new AcceptedPing(IncomingPingUtils.prepareEvent(body, request), pingDTO);
+        if (!consumer.offer(ping)) {
+            logger.warn("Ping ingest queue is full, processing ping from {} synchronously", request.getRemoteAddr());
+            processBatch(List.of(ping));
+        }
+        return true;
+    }
+
+    private void processBatch(List<AcceptedPing> batch) {
+        var events = new ArrayList<Event>(batch.size());
+        for (AcceptedPing ping : batch) {
+            try {
+                events.add(eventService.processIncomingPing(ping.event, ping.ping));
+            } catch (Exception e) {
+                logger.error("Failed to process queued ping {}: {}", ping.event.getUuid(), e.getMessage());
+            }
+        }
+        var persisted = persistEvents(events);
+        logger.info("Persisted batch of {} incoming pings", persisted.size());
+        for (Event event : persisted) {
+            eventService.triggerMetadataRetrieval(event);
+            webhookService.triggerWebhooks(event);
+        }
+    }
+
+    /**
+     * Entries are already stored, so when the batch cannot be saved at once its events are saved
+     * one by one and only pings whose event is lost are skipped (no retrieval or webhooks).
+     */
+    private List<Event> persistEvents(List<Event> events) {
+        try {
+            return eventRepository.saveAll(events);
+        } catch (Exception e) {
+            logger.warn("Failed to persist batch of {} incoming pings, saving one by one: {}", events.size(), e.getMessage());
+        }
+        var persisted = new ArrayList<Event>(events.size());
+        for (Event event : events) {
+            try {
+                persisted.add(eventRepository.save(event));
+            } catch (Exception e) {
+                logger.error("Failed to persist incoming ping {}: {}", event.getUuid(), e.getMessage());
+            }
+        }
+        return persisted;
+    }
+
+    @PostConstruct
+    public void startConsumer() {
+        if (!isEnabled()) {
+            return;
+        }
+        consumer = new BatchingConsumer<>("fdpindex-ping-ingest",
+                eventsConfig.getPingIngestQueueCapacity(), eventsConfig.getPingIngestBatchSize(), this::processBatch);
+        logger.info("Started asynchronous ping ingest (queue capacity {})", eventsConfig.getPingIngestQueueCapacity());
+    }
+
+    @PreDestroy
+    public void stopConsumer() throws InterruptedException {
+        if (consumer == null) {
+            return;
+        }
+        consumer.stop();
+        consumer = null;
+    }
+
+    private static class AcceptedPing {
+        private final Event event;
+        private final PingDTO ping;
+
+        AcceptedPing(Event event, PingDTO ping) {
+            this.event = event;
+            this.ping = ping;
+        }
+    }
+}
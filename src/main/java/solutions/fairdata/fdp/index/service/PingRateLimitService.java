@@ -0,0 +1,72 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import solutions.fairdata.fdp.index.entity.config.EventsConfig;
+import solutions.fairdata.fdp.index.exceptions.RateLimitException;
+import solutions.fairdata.fdp.index.utils.IncomingPingUtils;
+import solutions.fairdata.fdp.index.utils.RateLimiter;
+
+import javax.annotation.PostConstruct;
+
+@Service
+public class PingRateLimitService {
+    private static final Logger logger = LoggerFactory.getLogger(PingRateLimitService.class);
+
+    @Autowired
+    private EventsConfig eventsConfig;
+
+    private RateLimiter addressLimiter;
+
+    private RateLimiter clientUrlLimiter;
+
+    @PostConstruct
+    public void initLimiters() {
+        addressLimiter = new RateLimiter(eventsConfig.getPingRateLimitDuration(), eventsConfig.getPingRateLimitHits());
+        clientUrlLimiter = new RateLimiter(eventsConfig.getPingUrlRateLimitDuration(), eventsConfig.getPingUrlRateLimitHits());
+    }
+
+    public void checkRemoteAddr(String remoteAddr) {
+        if (!addressLimiter.tryAcquire(remoteAddr)) {
+            logger.warn("Rate limit for PING reached by {}", remoteAddr);
+            throw new RateLimitException(String.format(
+                    "Rate limit reached for %s (max. %d per %s) - PING ignored",
+                    remoteAddr, eventsConfig.getPingRateLimitHits(), eventsConfig.getPingRateLimitDuration().toString())
+            );
+        }
+    }
+
+    public void checkClientUrl(String clientUrl) {
+        if (!clientUrlLimiter.tryAcquire(IncomingPingUtils.normalizeClientUrl(clientUrl))) {
+            logger.warn("Rate limit for PING reached for URL {}", clientUrl);
+            throw new RateLimitException(String.format(
+                    "Rate limit reached for %s (max. %d per %s) - PING ignored",
+                    clientUrl, eventsConfig.getPingUrlRateLimitHits(), eventsConfig.getPingUrlRateLimitDuration().toString())
+            );
+        }
+    }
+}
@@ -0,0 +1,301 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import solutions.fairdata.fdp.index.entity.config.EventsConfig;
+import solutions.fairdata.fdp.index.entity.events.Event;
+import solutions.fairdata.fdp.index.entity.http.Response;
+
+import javax.annotation.Nullable;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs retrievals on a worker pool while keeping a queue per host, workers only take tasks of hosts
+ * that are due (delay between requests and number of connections per host), waiting hosts are woken
+ * up by a scheduler so no worker is held while a host is being waited for.
+ */
+@Service
+public class RetrievalSchedulerService {
+    private static final Logger logger = LoggerFactory.getLogger(RetrievalSchedulerService.class);
+
+    private static final String UNKNOWN_HOST = "";
+
+    private static final Duration MIN_EVICTION_PERIOD = Duration.ofMinutes(1);
+
+    @Autowired
+    private EventsConfig eventsConfig;
+
+    private final Map<String, HostState> hosts = new HashMap<>();
+
+    // hosts with queued tasks and a free connection, ordered by the time of their next request
+    private final PriorityQueue<HostState> readyHosts = new PriorityQueue<>(Comparator.comparing(state -> state.nextAllowed));
+
+    private ExecutorService workers;
+
+    private ScheduledExecutorService scheduler;
+
+    private ScheduledFuture<?> wakeUp;
+
+    private Instant wakeUpAt;
+
+    @PostConstruct
+    public void startWorkers() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("fdpindex-retrieval-");
+        threadFactory.setDaemon(true);
+        workers = Executors.newFixedThreadPool(eventsConfig.getRetrievalConcurrency(), threadFactory);
+        CustomizableThreadFactory schedulerThreadFactory = new CustomizableThreadFactory("fdpindex-retrieval-scheduler-");
+        schedulerThreadFactory.setDaemon(true);
+        scheduler = Executors.newSingleThreadScheduledExecutor(schedulerThreadFactory);
+        long evictionPeriod = max(eventsConfig.getRetrievalHostMaxDelay(), MIN_EVICTION_PERIOD).toMillis();
+        scheduler.scheduleAtFixedRate(this::evictIdleHosts, evictionPeriod, evictionPeriod, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stopWorkers() {
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Queues the retrievals, the returned future completes when all of them are finished.
+     */
+    public CompletableFuture<Void> submitAll(Iterable<Event> events, Consumer<Event> retrieval) {
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        synchronized (this) {
+            for (Event event : events) {
+                Task task = new Task(event, retrieval);
+                tasks.add(task.done);
+                HostState state = hosts.computeIfAbsent(hostOf(event.getRelatedTo().getClientUrl()), host -> new HostState());
+                state.queue.add(task);
+                updateReady(state);
+            }
+            dispatch();
+        }
+        return CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Adapts delay of the host to the response, slows down on 429/503 (respecting Retry-After)
+     * and speeds up back to the minimal delay otherwise.
+     */
+    public synchronized void recordResponse(String clientUrl, @Nullable Response response) {
+        String host = hostOf(clientUrl);
+        HostState state = hosts.get(host);
+        if (state == null) {
+            return;
+        }
+        Integer code = response == null ? null : response.getCode();
+        if (code != null && (code == 429 || code == 503)) {
+            Duration retryAfter = retryAfter(response);
+            Duration slower = state.delay.multipliedBy(2);
+            if (retryAfter != null && retryAfter.compareTo(slower) > 0) {
+                slower = retryAfter;
+            }
+            state.delay = min(slower, eventsConfig.getRetrievalHostMaxDelay());
+            Instant backoff = Instant.now().plus(retryAfter != null ? min(retryAfter, eventsConfig.getRetrievalHostMaxDelay()) : state.delay);
+            if (backoff.isAfter(state.nextAllowed)) {
+                // re-inserted as the priority of a ready host must not change in place
+                if (state.ready) {
+                    readyHosts.remove(state);
+                }
+                state.nextAllowed = backoff;
+                if (state.ready) {
+                    readyHosts.add(state);
+                }
+            }
+            logger.info("Host {} asks to slow down ({}), delay is now {}", host, code, state.delay);
+        } else if (state.delay.compareTo(eventsConfig.getRetrievalHostMinDelay()) > 0) {
+            state.delay = max(state.delay.dividedBy(2), eventsConfig.getRetrievalHostMinDelay());
+        }
+    }
+
+    /**
+     * Current delay between requests to the host of the URL (null if the host is not tracked).
+     */
+    @Nullable
+    synchronized Duration getHostDelay(String clientUrl) {
+        HostState state = hosts.get(hostOf(clientUrl));
+        return state == null ? null : state.delay;
+    }
+
+    /**
+     * Forgets idle hosts whose last slowdown has passed by more than the maximal delay.
+     */
+    synchronized void evictIdleHosts() {
+        Instant threshold = Instant.now().minus(eventsConfig.getRetrievalHostMaxDelay());
+        hosts.values().removeIf(state -> state.queue.isEmpty() && state.active == 0 && !state.nextAllowed.isAfter(threshold));
+    }
+
+    private synchronized void dispatch() {
+        Instant now = Instant.now();
+        while (!readyHosts.isEmpty() && !readyHosts.peek().nextAllowed.isAfter(now)) {
+            HostState state = readyHosts.poll();
+            state.ready = false;
+            Task task = state.queue.poll();
+            state.active++;
+            state.nextAllowed = now.plus(state.delay);
+            updateReady(state);
+            try {
+                workers.execute(() -> run(state, task));
+            } catch (RuntimeException e) {
+                state.active--;
+                task.done.completeExceptionally(e);
+            }
+        }
+        if (!readyHosts.isEmpty()) {
+            Instant next = readyHosts.peek().nextAllowed;
+            if (wakeUp == null || next.isBefore(wakeUpAt)) {
+                if (wakeUp != null) {
+                    wakeUp.cancel(false);
+                }
+                wakeUpAt = next;
+                wakeUp = scheduler.schedule(this::wakeUp, Duration.between(now, next).toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private synchronized void wakeUp() {
+        wakeUp = null;
+        dispatch();
+    }
+
+    private void run(HostState state, Task task) {
+        Throwable error = null;
+        try {
+            task.retrieval.accept(task.event);
+        } catch (Throwable e) {
+            error = e;
+        }
+        // host is released before the task completes so that waiting callers see it idle
+        synchronized (this) {
+            state.active--;
+            updateReady(state);
+            dispatch();
+        }
+        if (error == null) {
+            task.done.complete(null);
+        } else {
+            task.done.completeExceptionally(error);
+        }
+    }
+
+    private void updateReady(HostState state) {
+        boolean eligible = !state.queue.isEmpty() && state.active < eventsConfig.getRetrievalHostMaxConnections();
+        if (eligible && !state.ready) {
+            readyHosts.add(state);
+            state.ready = true;
+        } else if (!eligible && state.ready) {
+            readyHosts.remove(state);
+            state.ready = false;
+        }
+    }
+
+    private static String hostOf(String clientUrl) {
+        try {
+            String host = URI.create(clientUrl).getHost();
+            return host == null ? UNKNOWN_HOST : host.toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException e) {
+            return UNKNOWN_HOST;
+        }
+    }
+
+    @Nullable
+    static Duration retryAfter(Response response) {
+        if (response.getHeaders() == null) {
+            return null;
+        }
+        String value = response.getHeaders().entrySet().stream()
+                .filter(header -> header.getKey().equalsIgnoreCase("Retry-After") && !header.getValue().isEmpty())
+                .map(header -> header.getValue().get(0).trim())
+                .findFirst()
+                .orElse(null);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            try {
+                Duration until = Duration.between(Instant.now(), ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant());
+                return until.isNegative() ? Duration.ZERO : until;
+            } catch (DateTimeParseException ex) {
+                return null;
+            }
+        }
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private static Duration max(Duration a, Duration b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
+    private static class Task {
+        private final Event event;
+        private final Consumer<Event> retrieval;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private Task(Event event, Consumer<Event> retrieval) {
+            this.event = event;
+            this.retrieval = retrieval;
+        }
+    }
+
+    private class HostState {
+        private final Deque<Task> queue = new ArrayDeque<>();
+        private int active = 0;
+        private boolean ready = false;
+        private Instant nextAllowed = Instant.now();
+        private Duration delay = eventsConfig.getRetrievalHostMinDelay();
+    }
+}
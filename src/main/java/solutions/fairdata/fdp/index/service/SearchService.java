@@ -0,0 +1,180 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.service;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+import solutions.fairdata.fdp.index.api.dto.FacetValueDTO;
+import solutions.fairdata.fdp.index.api.dto.SearchHitDTO;
+import solutions.fairdata.fdp.index.api.dto.SearchResultDTO;
+import solutions.fairdata.fdp.index.entity.IndexEntry;
+import solutions.fairdata.fdp.index.entity.IndexEntryState;
+import solutions.fairdata.fdp.index.entity.RepositoryMetadata;
+import solutions.fairdata.fdp.index.entity.config.EventsConfig;
+
+import javax.annotation.Nullable;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+public class SearchService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private static final int MAX_FACET_VALUES = 50;
+
+    private static final String FIELD_METADATA = "currentMetadata.";
+
+    private static final String FIELD_COUNTRY = FIELD_METADATA + RepositoryMetadata.FIELD_COUNTRY;
+
+    private static final String FIELD_PUBLISHER = FIELD_METADATA + RepositoryMetadata.FIELD_PUBLISHER_NAME;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private EventsConfig eventsConfig;
+
+    public SearchResultDTO search(@Nullable String query, @Nullable String country, @Nullable String publisher,
+                                  String state, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int pageNumber = Math.max(0, page);
+        // computed in long as a far page would overflow to negative $skip
+        long skip = Math.min((long) pageNumber * pageSize, Integer.MAX_VALUE);
+        boolean fullText = query != null && !query.isBlank();
+
+        Document match = stateFilter(state);
+        if (fullText) {
+            match.append("$text", new Document("$search", query));
+        }
+        List<Document> pipeline = new ArrayList<>();
+        pipeline.add(new Document("$match", match));
+        if (fullText) {
+            pipeline.add(new Document("$addFields", new Document("score", new Document("$meta", "textScore"))));
+        }
+        // facet counts ignore own selection (and respect the other one)
+        pipeline.add(new Document("$facet", new Document()
+                .append("hits", List.of(
+                        new Document("$match", facetFilter(country, publisher)),
+                        new Document("$sort", fullText ? new Document("score", -1) : new Document("modificationTime", -1)),
+                        new Document("$skip", skip),
+                        new Document("$limit", pageSize)
+                ))
+                .append("total", List.of(
+                        new Document("$match", facetFilter(country, publisher)),
+                        new Document("$count", "count")
+                ))
+                .append("countries", facetValues(FIELD_COUNTRY, facetFilter(null, publisher)))
+                .append("publishers", facetValues(FIELD_PUBLISHER, facetFilter(country, null)))
+        ));
+
+        Document facets = mongoTemplate.getCollection(mongoTemplate.getCollectionName(IndexEntry.class))
+                .aggregate(pipeline)
+                .first();
+
+        SearchResultDTO result = new SearchResultDTO();
+        result.setPage(pageNumber);
+        result.setSize(pageSize);
+        if (facets == null) {
+            return result;
+        }
+        result.setHits(facets.getList("hits", Document.class).stream()
+                .map(document -> toSearchHit(mongoTemplate.getConverter().read(IndexEntry.class, document)))
+                .collect(Collectors.toList()));
+        result.setTotal(facets.getList("total", Document.class).stream()
+                .findFirst()
+                .map(document -> ((Number) document.get("count")).longValue())
+                .orElse(0L));
+        result.setCountries(toFacetValues(facets.getList("countries", Document.class)));
+        result.setPublishers(toFacetValues(facets.getList("publishers", Document.class)));
+        return result;
+    }
+
+    public SearchHitDTO toSearchHit(IndexEntry entry) {
+        SearchHitDTO dto = new SearchHitDTO();
+        dto.setClientUrl(entry.getClientUrl());
+        dto.setState(entry.getState().toString());
+        dto.setModificationTime(entry.getModificationTime().toString());
+        if (entry.getCurrentMetadata() != null) {
+            dto.setTitle(entry.getCurrentMetadata().getTitle());
+            dto.setPublisherName(entry.getCurrentMetadata().getPublisherName());
+            dto.setCountry(entry.getCurrentMetadata().getCountry());
+        }
+        return dto;
+    }
+
+    private Document stateFilter(String state) {
+        Date validThreshold = Date.from(Instant.now().minus(eventsConfig.getPingValidDuration()));
+        switch (state.toLowerCase()) {
+            case "active":
+                return new Document("state", IndexEntryState.Valid.toString())
+                        .append("lastRetrievalTime", new Document("$gt", validThreshold));
+            case "inactive":
+                return new Document("state", IndexEntryState.Valid.toString())
+                        .append("lastRetrievalTime", new Document("$lt", validThreshold));
+            case "unreachable":
+                return new Document("state", IndexEntryState.Unreachable.toString());
+            case "invalid":
+                return new Document("state", IndexEntryState.Invalid.toString());
+            case "unknown":
+                return new Document("state", IndexEntryState.Unknown.toString());
+            default:
+                return new Document();
+        }
+    }
+
+    private static Document facetFilter(@Nullable String country, @Nullable String publisher) {
+        Document filter = new Document();
+        if (country != null && !country.isBlank()) {
+            filter.append(FIELD_COUNTRY, country);
+        }
+        if (publisher != null && !publisher.isBlank()) {
+            filter.append(FIELD_PUBLISHER, publisher);
+        }
+        return filter;
+    }
+
+    private static List<Document> facetValues(String field, Document filter) {
+        Document matchField = new Document(filter);
+        if (!matchField.containsKey(field)) {
+            matchField.append(field, new Document("$ne", null));
+        }
+        return List.of(
+                new Document("$match", matchField),
+                new Document("$group", new Document("_id", "$" + field).append("count", new Document("$sum", 1))),
+                new Document("$sort", new Document("count", -1).append("_id", 1)),
+                new Document("$limit", MAX_FACET_VALUES)
+        );
+    }
+
+    private static List<FacetValueDTO> toFacetValues(List<Document> documents) {
+        return documents.stream()
+                .map(document -> new FacetValueDTO(document.getString("_id"), ((Number) document.get("count")).longValue()))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import solutions.fairdata.fdp.index.entity.config.WebhooksConfig;
+import solutions.fairdata.fdp.index.entity.events.Event;
+import solutions.fairdata.fdp.index.entity.webhooks.Webhook;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffers webhook triggers of webhooks with batching enabled and delivers them
+ * as a single payload once the batch window passes or the batch is full.
+ */
+@Service
+public class WebhookBatchService {
+    private static final Logger logger = LoggerFactory.getLogger(WebhookBatchService.class);
+
+    @Autowired
+    private WebhookService webhookService;
+
+    @Autowired
+    private WebhooksConfig webhooksConfig;
+
+    @Autowired
+    private ThreadPoolTaskExecutor executor;
+
+    private final Map<UUID, Batch> batches = new HashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void startScheduler() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("fdpindex-webhook-batch-");
+        threadFactory.setDaemon(true);
+        scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        List<Batch> pending;
+        synchronized (batches) {
+            pending = new ArrayList<>(batches.values());
+            batches.clear();
+        }
+        pending.forEach(batch -> {
+            batch.flush.cancel(false);
+            webhookService.processWebhookBatch(batch.webhook, batch.events);
+        });
+        scheduler.shutdownNow();
+    }
+
+    public void enqueue(Webhook webhook, Event event) {
+        Batch full = null;
+        synchronized (batches) {
+            Batch batch = batches.computeIfAbsent(webhook.getUuid(), uuid -> new Batch(webhook));
+            batch.events.add(event);
+            if (batch.events.size() >= webhooksConfig.getBatchSize()) {
+                batches.remove(webhook.getUuid());
+                batch.flush.cancel(false);
+                full = batch;
+            }
+        }
+        if (full != null) {
+            deliver(full);
+        }
+    }
+
+    private void flush(UUID webhookUuid, Batch batch) {
+        synchronized (batches) {
+            if (!batches.remove(webhookUuid, batch)) {
+                return;
+            }
+        }
+        deliver(batch);
+    }
+
+    private void deliver(Batch batch) {
+        logger.info("Delivering batch of {} triggers to webhook {}", batch.events.size(), batch.webhook.getUuid());
+        executor.execute(() -> webhookService.processWebhookBatch(batch.webhook, batch.events));
+    }
+
+    private class Batch {
+        private final Webhook webhook;
+        private final List<Event> events = new ArrayList<>();
+        private final ScheduledFuture<?> flush;
+
+        private Batch(Webhook webhook) {
+            this.webhook = webhook;
+            this.flush = scheduler.schedule(
+                    () -> WebhookBatchService.this.flush(webhook.getUuid(), this),
+                    webhooksConfig.getBatchWindow().toMillis(), TimeUnit.MILLISECONDS
+            );
+        }
+    }
+}
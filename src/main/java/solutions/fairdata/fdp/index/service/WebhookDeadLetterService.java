@@ -0,0 +1,191 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.service;
+
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import solutions.fairdata.fdp.index.database.repository.WebhookRepository;
+import solutions.fairdata.fdp.index.entity.config.WebhooksConfig;
+import solutions.fairdata.fdp.index.entity.events.Event;
+import solutions.fairdata.fdp.index.entity.webhooks.Webhook;
+import solutions.fairdata.fdp.index.entity.webhooks.WebhookDeadLetter;
+import solutions.fairdata.fdp.index.utils.WebhookUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+@Service
+public class WebhookDeadLetterService {
+    private static final Logger logger = LoggerFactory.getLogger(WebhookDeadLetterService.class);
+
+    @Autowired
+    private WebhookRepository webhookRepository;
+
+    @Autowired
+    private WebhookService webhookService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private WebhooksConfig webhooksConfig;
+
+    private final Set<UUID> replaying = ConcurrentHashMap.newKeySet();
+
+    private final ConcurrentMap<String, Instant> nextDelivery = new ConcurrentHashMap<>();
+
+    public void storeFailed(List<Event> events) {
+        List<WebhookDeadLetter> deadLetters = events.stream()
+                .filter(event -> event.getWebhookTrigger().getReplayOf() == null)
+                .map(WebhookDeadLetter::of)
+                .collect(Collectors.toList());
+        if (!deadLetters.isEmpty()) {
+            mongoTemplate.insert(deadLetters, WebhookDeadLetter.class);
+        }
+    }
+
+    public List<Webhook> getWebhooksWithDeadLetters() {
+        List<UUID> webhookUuids = mongoTemplate.findDistinct(new Query(), "webhookUuid", WebhookDeadLetter.class, UUID.class);
+        return webhookUuids.stream()
+                .map(webhookRepository::findByUuid)
+                .flatMap(Optional::stream)
+                .collect(Collectors.toList());
+    }
+
+    @Async
+    public void replay(Webhook webhook) {
+        if (!replaying.add(webhook.getUuid())) {
+            logger.info("Replay of dead letters for webhook {} is already running", webhook.getUuid());
+            return;
+        }
+        try {
+            replayAll(webhook);
+        } finally {
+            replaying.remove(webhook.getUuid());
+        }
+    }
+
+    private void replayAll(Webhook webhook) {
+        logger.info("Replaying dead letters for webhook {}", webhook.getUuid());
+        ObjectId after = null;
+        int delivered = 0;
+        int failed = 0;
+        while (true) {
+            List<WebhookDeadLetter> page = nextPage(webhook.getUuid(), after);
+            if (page.isEmpty()) {
+                break;
+            }
+            List<ObjectId> succeeded = new ArrayList<>();
+            List<ObjectId> unsucceeded = new ArrayList<>();
+            // batching webhooks receive replayed events in batches as they would receive them live
+            int chunkSize = webhook.isBatching() ? webhooksConfig.getBatchSize() : 1;
+            for (int from = 0; from < page.size(); from += chunkSize) {
+                List<WebhookDeadLetter> chunk = page.subList(from, Math.min(from + chunkSize, page.size()));
+                awaitTurn(webhook.getPayloadUrl());
+                List<Event> events = deliver(webhook, chunk);
+                for (int i = 0; i < chunk.size(); i++) {
+                    if (WebhookUtils.isDelivered(events.get(i))) {
+                        succeeded.add(chunk.get(i).getId());
+                        delivered++;
+                    } else {
+                        unsucceeded.add(chunk.get(i).getId());
+                        failed++;
+                    }
+                }
+            }
+            if (!succeeded.isEmpty()) {
+                mongoTemplate.remove(Query.query(Criteria.where("_id").in(succeeded)), WebhookDeadLetter.class);
+            }
+            if (!unsucceeded.isEmpty()) {
+                mongoTemplate.updateMulti(
+                        Query.query(Criteria.where("_id").in(unsucceeded)),
+                        new Update().inc("attempts", 1).set("lastFailure", Instant.now()),
+                        WebhookDeadLetter.class
+                );
+            }
+            after = page.get(page.size() - 1).getId();
+        }
+        logger.info("Replayed dead letters for webhook {}: {} delivered, {} failed", webhook.getUuid(), delivered, failed);
+    }
+
+    private List<Event> deliver(Webhook webhook, List<WebhookDeadLetter> deadLetters) {
+        List<Event> events = deadLetters.stream()
+                .map(deadLetter -> WebhookUtils.prepareReplayEvent(webhook, deadLetter))
+                .collect(Collectors.toList());
+        if (webhook.isBatching()) {
+            events.forEach(Event::execute);
+            webhookService.processWebhookBatch(webhook, events);
+        } else {
+            events.forEach(webhookService::processWebhookTrigger);
+        }
+        return events;
+    }
+
+    private List<WebhookDeadLetter> nextPage(UUID webhookUuid, ObjectId after) {
+        Criteria criteria = Criteria.where("webhookUuid").is(webhookUuid);
+        if (after != null) {
+            criteria = criteria.and("_id").gt(after);
+        }
+        Query query = Query.query(criteria)
+                .with(PageRequest.of(0, webhooksConfig.getReplayPageSize(), Sort.by(Sort.Direction.ASC, "_id")));
+        return mongoTemplate.find(query, WebhookDeadLetter.class);
+    }
+
+    /**
+     * Reserves the next delivery slot of the payload URL, the interval is shared by all replays
+     * targeting the same URL so several webhooks of one subscriber are not replayed in parallel.
+     */
+    private void awaitTurn(String payloadUrl) {
+        Duration interval = webhooksConfig.getReplayInterval();
+        Instant now = Instant.now();
+        Instant turn = nextDelivery.merge(payloadUrl, now.plus(interval),
+                (next, ignored) -> (next.isAfter(now) ? next : now).plus(interval)).minus(interval);
+        long wait = Duration.between(now, turn).toMillis();
+        if (wait <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(wait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
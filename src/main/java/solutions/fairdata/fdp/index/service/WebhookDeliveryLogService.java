@@ -0,0 +1,91 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+import solutions.fairdata.fdp.index.entity.config.WebhooksConfig;
+import solutions.fairdata.fdp.index.entity.webhooks.WebhookDelivery;
+import solutions.fairdata.fdp.index.utils.BatchingConsumer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+
+/**
+ * Compact log of webhook deliveries (used instead of storing full trigger events when
+ * enabled), records are bulk-inserted from a queue by a background consumer.
+ */
+@Service
+public class WebhookDeliveryLogService {
+    private static final Logger logger = LoggerFactory.getLogger(WebhookDeliveryLogService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private WebhooksConfig webhooksConfig;
+
+    private BatchingConsumer<WebhookDelivery> consumer;
+
+    public boolean isEnabled() {
+        return webhooksConfig.isDeliveryLog();
+    }
+
+    public void record(WebhookDelivery delivery) {
+        if (!consumer.offer(delivery)) {
+            logger.warn("Webhook delivery log queue is full, storing delivery {} synchronously", delivery.getEventUuid());
+            insertBatch(List.of(delivery));
+        }
+    }
+
+    private void insertBatch(List<WebhookDelivery> batch) {
+        try {
+            mongoTemplate.insert(batch, WebhookDelivery.class);
+        } catch (Exception e) {
+            logger.error("Failed to persist batch of {} webhook deliveries: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    @PostConstruct
+    public void startConsumer() {
+        if (!isEnabled()) {
+            return;
+        }
+        consumer = new BatchingConsumer<>("fdpindex-webhook-delivery-log",
+                webhooksConfig.getDeliveryLogQueueCapacity(), webhooksConfig.getDeliveryLogBatchSize(), this::insertBatch);
+        logger.info("Started webhook delivery log (queue capacity {})", webhooksConfig.getDeliveryLogQueueCapacity());
+    }
+
+    @PreDestroy
+    public void stopConsumer() throws InterruptedException {
+        if (consumer == null) {
+            return;
+        }
+        consumer.stop();
+        consumer = null;
+    }
+}
@@ -27,24 +27,46 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import solutions.fairdata.fdp.index.api.dto.WebhookDTO;
 import solutions.fairdata.fdp.index.api.dto.WebhookPayloadDTO;
 import solutions.fairdata.fdp.index.database.repository.EventRepository;
 import solutions.fairdata.fdp.index.database.repository.WebhookRepository;
 import solutions.fairdata.fdp.index.entity.config.EventsConfig;
+import solutions.fairdata.fdp.index.entity.config.WebhooksConfig;
 import solutions.fairdata.fdp.index.entity.events.Event;
+import solutions.fairdata.fdp.index.entity.http.Exchange;
 import solutions.fairdata.fdp.index.entity.webhooks.Webhook;
+import solutions.fairdata.fdp.index.entity.webhooks.WebhookDelivery;
 import solutions.fairdata.fdp.index.entity.webhooks.WebhookEvent;
+import solutions.fairdata.fdp.index.entity.webhooks.WebhookSignature;
+import solutions.fairdata.fdp.index.exceptions.BadRequestException;
+import solutions.fairdata.fdp.index.exceptions.ConflictException;
 import solutions.fairdata.fdp.index.exceptions.NotFoundException;
+import solutions.fairdata.fdp.index.utils.WebhookMatcher;
 import solutions.fairdata.fdp.index.utils.WebhookUtils;
 
+import javax.annotation.Nullable;
 import javax.servlet.http.HttpServletRequest;
-import java.security.NoSuchAlgorithmException;
+import javax.validation.Validator;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 
 @Service
@@ -63,37 +85,284 @@ public class WebhookService {
     @Autowired
     private EventsConfig eventsConfig;
 
+    @Autowired
+    private WebhooksConfig webhooksConfig;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Autowired
+    private WebhookBatchService webhookBatchService;
+
+    @Autowired
+    private WebhookDeliveryLogService webhookDeliveryLogService;
+
+    @Autowired
+    private WebhookDeadLetterService webhookDeadLetterService;
+
     private static final String SECRET_PLACEHOLDER = "*** HIDDEN ***";
 
+    private final AtomicReference<Matchers> matchers = new AtomicReference<>();
+
+    private final AtomicLong matchersGeneration = new AtomicLong();
+
     public void processWebhookTrigger(Event event) {
         event.execute();
-        eventRepository.save(event);
+        if (!webhookDeliveryLogService.isEnabled()) {
+            eventRepository.save(event);
+        }
         WebhookPayloadDTO webhookPayload = WebhookUtils.preparePayload(event);
+        deliver(event.getWebhookTrigger().getWebhook(), webhookPayload, List.of(webhookPayload))
+                .ifPresent(event.getWebhookTrigger()::setExchange);
+        event.finish();
+        storeDeliveries(List.of(event));
+    }
+
+    public void processWebhookBatch(Webhook webhook, List<Event> events) {
+        List<WebhookPayloadDTO> webhookPayloads = events.stream()
+                .map(WebhookUtils::preparePayload)
+                .collect(Collectors.toList());
+        Optional<Exchange> exchange = deliver(webhook, webhookPayloads, webhookPayloads);
+        // full exchange is stored once with the first event, others keep its outcome and refer to it
+        Event first = events.get(0);
+        Optional<Exchange> outcome = exchange.map(WebhookUtils::summarizeExchange);
+        events.forEach(event -> {
+            if (event == first) {
+                exchange.ifPresent(event.getWebhookTrigger()::setExchange);
+            } else {
+                outcome.ifPresent(event.getWebhookTrigger()::setExchange);
+                event.getWebhookTrigger().setBatchOf(first.getUuid());
+            }
+            event.finish();
+        });
+        storeDeliveries(events);
+    }
+
+    private void storeDeliveries(List<Event> events) {
+        List<Event> failed = events.stream()
+                .filter(event -> !WebhookUtils.isDelivered(event))
+                .collect(Collectors.toList());
+        if (!webhookDeliveryLogService.isEnabled()) {
+            eventRepository.saveAll(events);
+        } else {
+            // only failed deliveries are kept with full exchange
+            events.forEach(event -> webhookDeliveryLogService.record(WebhookDelivery.of(event)));
+            if (!failed.isEmpty()) {
+                eventRepository.saveAll(failed);
+            }
+        }
+        if (!failed.isEmpty()) {
+            webhookDeadLetterService.storeFailed(failed);
+        }
+    }
+
+    public List<Webhook> getWebhooks() {
+        return webhookRepository.findAll();
+    }
+
+    public Webhook createWebhook(WebhookDTO webhookDTO) {
+        Webhook webhook = new Webhook();
+        if (webhookDTO.getUuid() != null) {
+            webhook.setUuid(parseUuid(webhookDTO.getUuid()));
+            if (webhookRepository.findByUuid(webhook.getUuid()).isPresent()) {
+                throw new ConflictException("Webhook already exists: " + webhook.getUuid());
+            }
+        }
+        applyDTO(webhook, webhookDTO);
+        Webhook saved;
+        try {
+            saved = webhookRepository.insert(webhook);
+        } catch (DuplicateKeyException e) {
+            throw new ConflictException("Webhook already exists: " + webhook.getUuid());
+        }
+        publishWebhooksChanged();
+        return saved;
+    }
+
+    public Webhook updateWebhook(UUID webhookUuid, WebhookDTO webhookDTO) {
+        Webhook webhook = getWebhook(webhookUuid);
+        applyDTO(webhook, webhookDTO);
+        Webhook saved = webhookRepository.save(webhook);
+        publishWebhooksChanged();
+        return saved;
+    }
+
+    public void deleteWebhook(UUID webhookUuid) {
+        webhookRepository.delete(getWebhook(webhookUuid));
+        publishWebhooksChanged();
+    }
+
+    public List<Webhook> importWebhooks(List<WebhookDTO> webhookDTOs) {
+        for (WebhookDTO webhookDTO : webhookDTOs) {
+            var violations = validator.validate(webhookDTO);
+            if (!violations.isEmpty()) {
+                throw new BadRequestException("Invalid webhook " + webhookDTO.getPayloadUrl() + ": " + violations.iterator().next().getMessage());
+            }
+        }
+        Set<UUID> uuids = new HashSet<>();
+        for (WebhookDTO webhookDTO : webhookDTOs) {
+            if (webhookDTO.getUuid() != null && !uuids.add(parseUuid(webhookDTO.getUuid()))) {
+                throw new BadRequestException("Duplicate webhook UUID in import: " + webhookDTO.getUuid());
+            }
+        }
+        Map<UUID, Webhook> existing = webhookRepository.findAllByUuidIn(uuids).stream()
+                .collect(Collectors.toMap(Webhook::getUuid, Function.identity()));
+        List<Webhook> webhooks = new ArrayList<>(webhookDTOs.size());
+        for (WebhookDTO webhookDTO : webhookDTOs) {
+            Webhook webhook = null;
+            if (webhookDTO.getUuid() != null) {
+                UUID uuid = parseUuid(webhookDTO.getUuid());
+                webhook = existing.get(uuid);
+                if (webhook == null) {
+                    webhook = new Webhook();
+                    webhook.setUuid(uuid);
+                }
+            }
+            if (webhook == null) {
+                webhook = new Webhook();
+            }
+            applyDTO(webhook, webhookDTO);
+            webhooks.add(webhook);
+        }
         try {
-            String payloadWithSecret = objectMapper.writeValueAsString(webhookPayload);
-            String signature = WebhookUtils.computeHashSignature(payloadWithSecret);
-            webhookPayload.setSecret(SECRET_PLACEHOLDER);
-            String payloadWithoutSecret = objectMapper.writeValueAsString(webhookPayload);
-            WebhookUtils.postWebhook(event, eventsConfig.getRetrievalTimeout(), payloadWithoutSecret, signature);
+            return webhookRepository.saveAll(webhooks);
+        } catch (DuplicateKeyException e) {
+            throw new ConflictException("Webhooks were changed concurrently, import again");
+        } finally {
+            // also after a partial write, cached matchers must not miss already saved webhooks
+            publishWebhooksChanged();
+        }
+    }
+
+    public WebhookDTO toDTO(Webhook webhook) {
+        WebhookDTO webhookDTO = new WebhookDTO();
+        webhookDTO.setUuid(webhook.getUuid().toString());
+        webhookDTO.setPayloadUrl(webhook.getPayloadUrl());
+        webhookDTO.setSecret(SECRET_PLACEHOLDER);
+        webhookDTO.setSignature(webhook.getSignature());
+        webhookDTO.setAllEvents(webhook.isAllEvents());
+        webhookDTO.setEvents(webhook.getEvents());
+        webhookDTO.setAllEntries(webhook.isAllEntries());
+        webhookDTO.setEntries(webhook.getEntries());
+        webhookDTO.setEnabled(webhook.isEnabled());
+        webhookDTO.setBatching(webhook.isBatching());
+        return webhookDTO;
+    }
+
+    private void applyDTO(Webhook webhook, WebhookDTO webhookDTO) {
+        if (webhookDTO.getSecret() != null && !webhookDTO.getSecret().equals(SECRET_PLACEHOLDER)) {
+            webhook.setSecret(webhookDTO.getSecret());
+        }
+        if (webhook.getSecret() == null || webhook.getSecret().isEmpty()) {
+            throw new BadRequestException("Webhook secret is required: " + webhookDTO.getPayloadUrl());
+        }
+        if (webhookDTO.getSignature() != null) {
+            webhook.setSignature(webhookDTO.getSignature());
+        }
+        webhook.setPayloadUrl(webhookDTO.getPayloadUrl());
+        webhook.setAllEvents(webhookDTO.isAllEvents());
+        webhook.setEvents(new ArrayList<>(webhookDTO.getEvents()));
+        webhook.setAllEntries(webhookDTO.isAllEntries());
+        webhook.setEntries(new ArrayList<>(webhookDTO.getEntries()));
+        webhook.setEnabled(webhookDTO.isEnabled());
+        webhook.setBatching(webhookDTO.isBatching());
+    }
+
+    private UUID parseUuid(String uuid) {
+        try {
+            return UUID.fromString(uuid);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid webhook UUID: " + uuid);
+        }
+    }
+
+    private void publishWebhooksChanged() {
+        applicationEventPublisher.publishEvent(new WebhooksChangedEvent(this));
+    }
+
+    @EventListener(WebhooksChangedEvent.class)
+    public void onWebhooksChanged() {
+        invalidateMatchers();
+    }
+
+    public Webhook getWebhook(UUID webhookUuid) {
+        return webhookRepository.findByUuid(webhookUuid).orElseThrow(
+                () -> new NotFoundException("There is no such webhook: " + webhookUuid)
+        );
+    }
+
+    private Optional<Exchange> deliver(Webhook webhook, Object payload, List<WebhookPayloadDTO> webhookPayloads) {
+        try {
+            String signature = null;
+            if (webhook.getSignature() == WebhookSignature.Sha1) {
+                // legacy scheme signs the payload with secret embedded
+                signature = WebhookUtils.computeHashSignature(objectMapper.writeValueAsString(payload));
+            }
+            webhookPayloads.forEach(webhookPayload -> webhookPayload.setSecret(SECRET_PLACEHOLDER));
+            String body = objectMapper.writeValueAsString(payload);
+            if (signature == null) {
+                signature = WebhookUtils.computeHmacSignature(body, webhook.getSecret());
+            }
+            return Optional.of(WebhookUtils.postWebhook(webhook, eventsConfig.getRetrievalTimeout(), body, signature));
         } catch (JsonProcessingException e) {
             logger.error("Failed to convert webhook payload to string");
-        } catch (NoSuchAlgorithmException e) {
-            logger.error("Could not compute SHA-1 signature of payload");
+        } catch (IllegalArgumentException e) {
+            logger.error("Could not compute signature of payload: {}", e.getMessage());
         }
-        event.finish();
-        eventRepository.save(event);
+        return Optional.empty();
     }
 
     @Async
     public void triggerWebhook(Webhook webhook, WebhookEvent webhookEvent, Event triggerEvent) {
         Event event = WebhookUtils.prepareTriggerEvent(webhook, webhookEvent, triggerEvent);
-        processWebhookTrigger(event);
+        if (webhook.isBatching()) {
+            event.execute();
+            if (!webhookDeliveryLogService.isEnabled()) {
+                eventRepository.save(event);
+            }
+            webhookBatchService.enqueue(webhook, event);
+        } else {
+            processWebhookTrigger(event);
+        }
     }
 
     @Async
     public void triggerWebhooks(WebhookEvent webhookEvent, Event triggerEvent) {
         logger.info("Triggered webhook event {} by event {}", webhookEvent, triggerEvent.getUuid());
-        WebhookUtils.filterMatching(webhookRepository.findAll(), webhookEvent, triggerEvent).forEach(webhook -> triggerWebhook(webhook, webhookEvent, triggerEvent));
+        WebhookUtils.filterMatching(getMatchers(), webhookEvent, triggerEvent).forEach(webhook -> triggerWebhook(webhook, webhookEvent, triggerEvent));
+    }
+
+    public List<WebhookMatcher> getMatchers() {
+        Matchers current = matchers.get();
+        if (!isUpToDate(current)) {
+            synchronized (this) {
+                current = matchers.get();
+                if (!isUpToDate(current)) {
+                    // webhooks changed while loading must not be overwritten by the stale list
+                    long generation = matchersGeneration.get();
+                    Matchers loaded = new Matchers(WebhookUtils.compileMatchers(webhookRepository.findAll()), Instant.now(), generation);
+                    if (matchersGeneration.get() == generation) {
+                        matchers.compareAndSet(current, loaded);
+                    }
+                    current = loaded;
+                }
+            }
+        }
+        return current.matchers;
+    }
+
+    private boolean isUpToDate(@Nullable Matchers current) {
+        return current != null
+                && current.generation == matchersGeneration.get()
+                && !current.loaded.plus(webhooksConfig.getRegistryRefresh()).isBefore(Instant.now());
+    }
+
+    public void invalidateMatchers() {
+        matchersGeneration.incrementAndGet();
+        matchers.set(null);
     }
 
     public Event handleWebhookPing(HttpServletRequest request, UUID webhookUuid) {
@@ -122,6 +391,9 @@ public class WebhookService {
                 switch (triggerEvent.getRelatedTo().getState()) {
                     case Valid:
                         triggerWebhooks(WebhookEvent.EntryValid, triggerEvent);
+                        if (Boolean.TRUE.equals(triggerEvent.getMetadataRetrieval().getChanged())) {
+                            triggerWebhooks(WebhookEvent.EntryChanged, triggerEvent);
+                        }
                         break;
                     case Invalid:
                         triggerWebhooks(WebhookEvent.EntryInvalid, triggerEvent);
@@ -140,4 +412,16 @@ public class WebhookService {
                 logger.warn("Invalid event type for webhook trigger: {}", triggerEvent.getType());
         }
     }
+
+    private static class Matchers {
+        private final List<WebhookMatcher> matchers;
+        private final Instant loaded;
+        private final long generation;
+
+        Matchers(List<WebhookMatcher> matchers, Instant loaded, long generation) {
+            this.matchers = matchers;
+            this.loaded = loaded;
+            this.generation = generation;
+        }
+    }
 }
@@ -0,0 +1,105 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Bounded queue consumed by a background thread processing items in batches of up to the given
+ * size, items still queued when stopping are processed by the stopping thread.
+ */
+public class BatchingConsumer<T> {
+    private static final Logger logger = LoggerFactory.getLogger(BatchingConsumer.class);
+
+    private static final long POLL_TIMEOUT_MS = 500;
+
+    private static final long STOP_TIMEOUT_MS = 10000;
+
+    private final int batchSize;
+
+    private final Consumer<List<T>> processor;
+
+    private final BlockingQueue<T> queue;
+
+    private final Thread consumer;
+
+    private volatile boolean running = true;
+
+    public BatchingConsumer(String name, int capacity, int batchSize, Consumer<List<T>> processor) {
+        this.batchSize = batchSize;
+        this.processor = processor;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.consumer = new Thread(this::consume, name);
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    /**
+     * Returns false when the queue is full and the item must be processed by the caller.
+     */
+    public boolean offer(T item) {
+        return queue.offer(item);
+    }
+
+    public void stop() throws InterruptedException {
+        running = false;
+        consumer.join(STOP_TIMEOUT_MS);
+        var remaining = new ArrayList<T>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            logger.info("Processing {} remaining items of {}", remaining.size(), consumer.getName());
+            processor.accept(remaining);
+        }
+    }
+
+    private void consume() {
+        var batch = new ArrayList<T>(batchSize);
+        while (running) {
+            try {
+                var item = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (item == null) {
+                    continue;
+                }
+                batch.add(item);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            try {
+                processor.accept(batch);
+            } catch (RuntimeException e) {
+                logger.error("Failed to process batch of {} items in {}: {}", batch.size(), consumer.getName(), e.getMessage());
+            }
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.utils;
+
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.GeneralSecurityException;
+import java.security.Security;
+import java.time.Duration;
+
+/**
+ * Single outbound HTTP client, so connections and TLS sessions are reused across retrievals and
+ * webhooks. Host lookups are cached by the JVM address cache (the client cannot take a custom
+ * resolver), and java.net.http does not expose handshakes nor session resumption, so neither is
+ * reported.
+ */
+public class HttpClientUtils {
+
+    private static final Duration DNS_TTL = Duration.ofMinutes(5);
+
+    private static final Duration DNS_NEGATIVE_TTL = Duration.ofSeconds(30);
+
+    private static final int TLS_SESSION_CACHE_SIZE = 10000;
+
+    private static final Duration TLS_SESSION_TIMEOUT = Duration.ofHours(12);
+
+    private static final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.ALWAYS)
+            .sslContext(createSslContext())
+            .build();
+
+    /**
+     * Sets TTLs of the JVM address cache for resolved and unknown hosts (unless set explicitly),
+     * must be called before the first lookup.
+     */
+    public static void configureDnsCache() {
+        if (Security.getProperty("networkaddress.cache.ttl") == null) {
+            Security.setProperty("networkaddress.cache.ttl", String.valueOf(DNS_TTL.toSeconds()));
+        }
+        if (Security.getProperty("networkaddress.cache.negative.ttl") == null) {
+            Security.setProperty("networkaddress.cache.negative.ttl", String.valueOf(DNS_NEGATIVE_TTL.toSeconds()));
+        }
+    }
+
+    public static HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static SSLContext createSslContext() {
+        try {
+            SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(null, null, null);
+            sslContext.getClientSessionContext().setSessionCacheSize(TLS_SESSION_CACHE_SIZE);
+            sslContext.getClientSessionContext().setSessionTimeout((int) TLS_SESSION_TIMEOUT.toSeconds());
+            return sslContext;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialize TLS context", e);
+        }
+    }
+}
@@ -22,24 +22,61 @@
  */
 package solutions.fairdata.fdp.index.utils;
 
-import org.springframework.http.HttpEntity;
 import solutions.fairdata.fdp.index.entity.events.Event;
 import solutions.fairdata.fdp.index.entity.events.IncomingPing;
 import solutions.fairdata.fdp.index.entity.http.Exchange;
 import solutions.fairdata.fdp.index.entity.http.ExchangeDirection;
+import solutions.fairdata.fdp.index.exceptions.IncorrectPingFormatException;
+import solutions.fairdata.fdp.index.exceptions.PayloadTooLargeException;
 
 import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
 
 public class IncomingPingUtils {
 
     private static final Integer VERSION = 1;
 
-    public static Event prepareEvent(HttpEntity<String> httpEntity, HttpServletRequest request) {
+    public static Event prepareEvent(byte[] body, HttpServletRequest request) {
         var incomingPing = new IncomingPing();
         var ex = new Exchange(ExchangeDirection.INCOMING, request.getRemoteAddr());
         incomingPing.setExchange(ex);
-        ex.getRequest().setFromHttpEntity(httpEntity);
-        ex.getRequest().setFromHttpServletRequest(request);
+        ex.getRequest().setFromHttpServletRequest(request, new String(body, StandardCharsets.UTF_8));
         return new Event(VERSION, incomingPing);
     }
+
+    public static byte[] readBody(HttpServletRequest request, int maxSize) {
+        if (request.getContentLengthLong() > maxSize) {
+            throw new PayloadTooLargeException(String.format("PING payload exceeds %d bytes", maxSize));
+        }
+        try {
+            byte[] body = request.getInputStream().readNBytes(maxSize + 1);
+            if (body.length > maxSize) {
+                throw new PayloadTooLargeException(String.format("PING payload exceeds %d bytes", maxSize));
+            }
+            return body;
+        } catch (IOException e) {
+            throw new IncorrectPingFormatException("Could not read PING: " + e.getMessage());
+        }
+    }
+
+    public static String normalizeClientUrl(String clientUrl) {
+        try {
+            var uri = new URI(clientUrl.trim()).normalize();
+            var scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase(Locale.ROOT);
+            var host = uri.getHost() == null ? "" : uri.getHost().toLowerCase(Locale.ROOT);
+            var port = uri.getPort();
+            if ((port == 80 && scheme.equals("http")) || (port == 443 && scheme.equals("https"))) {
+                port = -1;
+            }
+            var path = uri.getRawPath() == null ? "" : uri.getRawPath().replaceAll("/+$", "");
+            var query = uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery();
+            return scheme + "://" + host + (port == -1 ? "" : ":" + port) + path + query;
+        } catch (URISyntaxException e) {
+            return clientUrl.trim().toLowerCase(Locale.ROOT);
+        }
+    }
 }
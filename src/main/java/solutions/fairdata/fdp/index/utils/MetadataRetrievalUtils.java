@@ -35,9 +35,12 @@ import org.eclipse.rdf4j.rio.RDFParser;
 import org.eclipse.rdf4j.rio.Rio;
 import org.eclipse.rdf4j.rio.helpers.StatementCollector;
 import org.springframework.http.HttpHeaders;
+import solutions.fairdata.fdp.index.entity.IndexEntry;
 import solutions.fairdata.fdp.index.entity.RepositoryMetadata;
+import solutions.fairdata.fdp.index.entity.config.EventsConfig;
 import solutions.fairdata.fdp.index.entity.events.Event;
 import solutions.fairdata.fdp.index.entity.events.EventType;
+import solutions.fairdata.fdp.index.entity.events.MetadataChange;
 import solutions.fairdata.fdp.index.entity.events.MetadataRetrieval;
 import solutions.fairdata.fdp.index.entity.http.Exchange;
 import solutions.fairdata.fdp.index.entity.http.ExchangeDirection;
@@ -47,15 +50,21 @@ import solutions.fairdata.fdp.index.service.IndexEntryService;
 import java.io.IOException;
 import java.io.StringReader;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 public class MetadataRetrievalUtils {
 
@@ -75,38 +84,112 @@ public class MetadataRetrievalUtils {
             COUNTRY, "country"
     );
 
-    private static final HttpClient client = HttpClient.newBuilder()
-            .version(HttpClient.Version.HTTP_2)
-            .followRedirects(HttpClient.Redirect.ALWAYS)
-            .build();
+    private static final String REPOSITORY_URI = "repositoryUri";
+
+    private static final int BACKOFF_MAX_EXPONENT = 20;
+
+    private static final double LATENCY_PERCENTILE = 0.99;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<MessageDigest> SHA256_DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
 
     public static boolean shouldRetrieve(Event triggerEvent, Duration rateLimitWait) {
-        if (triggerEvent.getRelatedTo() == null) {
+        if (triggerEvent.getRelatedEntry() == null) {
             return false;
         }
-        Instant lastRetrieval = triggerEvent.getRelatedTo().getLastRetrievalTime();
+        Instant lastRetrieval = triggerEvent.getRelatedEntry().getLastRetrievalTime();
         if (lastRetrieval == null) {
             return true;
         }
         return Duration.between(lastRetrieval, Instant.now()).compareTo(rateLimitWait) > 0;
     }
 
-    public static Iterable<Event> prepareEvents(Event triggerEvent, IndexEntryService indexEntryService) {
+    public static boolean isDueForRetry(IndexEntry entry, EventsConfig eventsConfig) {
+        Instant now = Instant.now();
+        if (entry.getNextRetryTime() != null && entry.getNextRetryTime().isAfter(now)) {
+            return false;
+        }
+        Duration skipDeadAfter = eventsConfig.getRetrievalSkipDeadAfter();
+        if (entry.getUnreachableSince() == null || skipDeadAfter.isZero()) {
+            return true;
+        }
+        return entry.getUnreachableSince().plus(skipDeadAfter).isAfter(now);
+    }
+
+    public static Iterable<Event> prepareEvents(Event triggerEvent, IndexEntryService indexEntryService, EventsConfig eventsConfig) {
         ArrayList<Event> events = new ArrayList<>();
         if (triggerEvent.getType() == EventType.IncomingPing) {
-            events.add(new Event(VERSION, triggerEvent, triggerEvent.getRelatedTo(), new MetadataRetrieval()));
+            events.add(new Event(VERSION, triggerEvent, triggerEvent.getRelatedEntry(), new MetadataRetrieval()));
         } else if (triggerEvent.getType() == EventType.AdminTrigger) {
             if (triggerEvent.getAdminTrigger().getClientUrl() == null) {
-                indexEntryService.getAllEntries().forEach(
-                        entry -> events.add(new Event(VERSION, triggerEvent, entry, new MetadataRetrieval()))
-                );
+                indexEntryService.getAllEntries().forEach(entry -> {
+                    if (isDueForRetry(entry, eventsConfig)) {
+                        events.add(new Event(VERSION, triggerEvent, entry, new MetadataRetrieval()));
+                    }
+                });
             } else {
-                events.add(new Event(VERSION, triggerEvent, triggerEvent.getRelatedTo(), new MetadataRetrieval()));
+                events.add(new Event(VERSION, triggerEvent, triggerEvent.getRelatedEntry(), new MetadataRetrieval()));
             }
         }
         return events;
     }
 
+    /**
+     * Timeout derived from p99 latency of past successful retrievals of the entry, the configured
+     * timeout is used when there is not enough history or the last retrieval failed.
+     */
+    public static Duration retrievalTimeout(IndexEntry entry, EventsConfig eventsConfig) {
+        List<Long> latencies = entry.getRetrievalLatencies();
+        if (entry.getFailureCount() > 0 || latencies == null || latencies.size() < eventsConfig.getRetrievalAdaptiveTimeoutSamples() / 2) {
+            return eventsConfig.getRetrievalTimeout();
+        }
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        long p99 = sorted[(int) Math.ceil(LATENCY_PERCENTILE * sorted.length) - 1];
+        Duration timeout = Duration.ofMillis((long) (p99 * eventsConfig.getRetrievalAdaptiveTimeoutFactor()));
+        if (timeout.compareTo(eventsConfig.getRetrievalAdaptiveTimeoutMin()) < 0) {
+            return eventsConfig.getRetrievalAdaptiveTimeoutMin();
+        }
+        if (timeout.compareTo(eventsConfig.getRetrievalTimeout()) > 0) {
+            return eventsConfig.getRetrievalTimeout();
+        }
+        return timeout;
+    }
+
+    public static void recordRetrievalSuccess(IndexEntry entry, Duration latency, EventsConfig eventsConfig) {
+        entry.setFailureCount(0);
+        entry.setUnreachableSince(null);
+        entry.setNextRetryTime(null);
+        if (entry.getRetrievalLatencies() == null) {
+            entry.setRetrievalLatencies(new ArrayList<>());
+        }
+        List<Long> latencies = entry.getRetrievalLatencies();
+        latencies.add(latency.toMillis());
+        while (latencies.size() > eventsConfig.getRetrievalAdaptiveTimeoutSamples()) {
+            latencies.remove(0);
+        }
+    }
+
+    public static void recordRetrievalFailure(IndexEntry entry, EventsConfig eventsConfig) {
+        Instant now = Instant.now();
+        entry.setFailureCount(entry.getFailureCount() + 1);
+        if (entry.getUnreachableSince() == null) {
+            entry.setUnreachableSince(now);
+        }
+        int exponent = Math.min(entry.getFailureCount() - 1, BACKOFF_MAX_EXPONENT);
+        Duration backoff = eventsConfig.getRetrievalBackoffBase().multipliedBy(1L << exponent);
+        if (backoff.compareTo(eventsConfig.getRetrievalBackoffMax()) > 0) {
+            backoff = eventsConfig.getRetrievalBackoffMax();
+        }
+        entry.setNextRetryTime(now.plus(backoff));
+    }
+
     public static void retrieveRepositoryMetadata(Event event, Duration timeout) {
         if (event.getType() != EVENT_TYPE) {
             throw new IllegalArgumentException("Invalid event type");
@@ -121,7 +204,7 @@ public class MetadataRetrievalUtils {
                     .GET().build();
             ex.getRequest().setFromHttpRequest(request);
             ex.setState(ExchangeState.Requested);
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = HttpClientUtils.send(request);
             ex.getResponse().setFromHttpResponse(response);
             ex.setState(ExchangeState.Retrieved);
         } catch (InterruptedException e) {
@@ -156,7 +239,7 @@ public class MetadataRetrievalUtils {
         for (Statement st: statements) {
             if (st.getSubject().equals(repository)) {
                 if (MAPPING.containsKey(st.getPredicate())) {
-                    repositoryMetadata.getMetadata().put(MAPPING.get(st.getPredicate()), st.getObject().stringValue());
+                    repositoryMetadata.put(MAPPING.get(st.getPredicate()), st.getObject().stringValue());
                 }
                 if (st.getPredicate().equals(DCTERMS.PUBLISHER)) {
                     publisher = st.getObject();
@@ -168,7 +251,7 @@ public class MetadataRetrievalUtils {
             for (Statement st: statements) {
                 if (st.getSubject().equals(publisher)) {
                     if (st.getPredicate().equals(FOAF.NAME)) {
-                        repositoryMetadata.getMetadata().put("publisherName", st.getObject().stringValue());
+                        repositoryMetadata.setPublisherName(st.getObject().stringValue());
                     }
                 }
             }
@@ -177,6 +260,66 @@ public class MetadataRetrievalUtils {
         return repositoryMetadata;
     }
 
+    /**
+     * Field-level differences between the previous and the current metadata, all present fields
+     * are reported as changed when there is no previous metadata.
+     */
+    public static List<MetadataChange> diffMetadata(RepositoryMetadata previous, RepositoryMetadata current) {
+        List<MetadataChange> changes = new ArrayList<>();
+        String previousUri = previous == null ? null : previous.getRepositoryUri();
+        if (!Objects.equals(previousUri, current.getRepositoryUri())) {
+            changes.add(new MetadataChange(REPOSITORY_URI, previousUri, current.getRepositoryUri()));
+        }
+        Map<String, String> previousValues = previous == null ? Map.of() : previous.asMap();
+        Map<String, String> currentValues = current.asMap();
+        Set<String> fields = new TreeSet<>(previousValues.keySet());
+        fields.addAll(currentValues.keySet());
+        for (String field : fields) {
+            String oldValue = previousValues.get(field);
+            String newValue = currentValues.get(field);
+            if (!Objects.equals(oldValue, newValue)) {
+                changes.add(new MetadataChange(field, oldValue, newValue));
+            }
+        }
+        return changes;
+    }
+
+    public static String computeMetadataHash(RepositoryMetadata metadata) {
+        return computeMetadataHash(metadata.getMetadataVersion(), metadata.getRepositoryUri(), metadata.asMap());
+    }
+
+    /**
+     * Content hash of the metadata, values are sorted by key and length-prefixed so the hash
+     * depends neither on the order of statements nor on the storage layout.
+     */
+    public static String computeMetadataHash(Integer metadataVersion, String repositoryUri, Map<String, String> values) {
+        StringBuilder canonical = new StringBuilder();
+        appendCanonical(canonical, String.valueOf(metadataVersion));
+        appendCanonical(canonical, repositoryUri);
+        new TreeMap<>(values).forEach((key, value) -> {
+            appendCanonical(canonical, key);
+            appendCanonical(canonical, value);
+        });
+        MessageDigest digest = SHA256_DIGEST.get();
+        digest.reset();
+        byte[] hash = digest.digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+        char[] result = new char[hash.length * 2];
+        int i = 0;
+        for (byte b : hash) {
+            result[i++] = HEX_DIGITS[(b >> 4) & 0xF];
+            result[i++] = HEX_DIGITS[b & 0xF];
+        }
+        return new String(result);
+    }
+
+    private static void appendCanonical(StringBuilder canonical, String value) {
+        if (value == null) {
+            canonical.append("-1:");
+        } else {
+            canonical.append(value.length()).append(':').append(value);
+        }
+    }
+
     private static Optional<Resource> findRepository(ArrayList<Statement> statements) {
         for (Statement st: statements) {
             if (st.getPredicate().equals(RDF.TYPE) && st.getObject().equals(REPOSITORY)) {
@@ -0,0 +1,83 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.utils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RateLimiter {
+
+    private static final int CLEANUP_PERIOD = 1000;
+
+    private final Duration window;
+
+    private final int hits;
+
+    private final ConcurrentMap<String, Deque<Instant>> hitsByKey = new ConcurrentHashMap<>();
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    public RateLimiter(Duration window, int hits) {
+        this.window = window;
+        this.hits = hits;
+    }
+
+    public boolean tryAcquire(String key) {
+        var now = Instant.now();
+        var since = now.minus(window);
+        if (calls.incrementAndGet() % CLEANUP_PERIOD == 0) {
+            cleanup(since);
+        }
+        var allowed = new boolean[1];
+        hitsByKey.compute(key, (k, log) -> {
+            var result = log == null ? new ArrayDeque<Instant>() : log;
+            evict(result, since);
+            if (result.size() < hits) {
+                result.addLast(now);
+                allowed[0] = true;
+            }
+            return result;
+        });
+        return allowed[0];
+    }
+
+    private void cleanup(Instant since) {
+        for (String key : hitsByKey.keySet()) {
+            hitsByKey.computeIfPresent(key, (k, log) -> {
+                evict(log, since);
+                return log.isEmpty() ? null : log;
+            });
+        }
+    }
+
+    private static void evict(Deque<Instant> log, Instant since) {
+        while (!log.isEmpty() && log.peekFirst().isBefore(since)) {
+            log.pollFirst();
+        }
+    }
+}
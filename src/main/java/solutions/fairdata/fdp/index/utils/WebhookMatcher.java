@@ -0,0 +1,70 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.utils;
+
+import solutions.fairdata.fdp.index.entity.events.Event;
+import solutions.fairdata.fdp.index.entity.webhooks.Webhook;
+import solutions.fairdata.fdp.index.entity.webhooks.WebhookEvent;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Immutable compiled form of {@link Webhook} used for matching triggers.
+ */
+public final class WebhookMatcher {
+
+    private final Webhook webhook;
+
+    private final boolean allEvents;
+
+    private final Set<WebhookEvent> events;
+
+    private final boolean allEntries;
+
+    private final Set<String> entries;
+
+    private WebhookMatcher(Webhook webhook) {
+        this.webhook = webhook;
+        this.allEvents = webhook.isAllEvents();
+        this.events = webhook.getEvents() == null || webhook.getEvents().isEmpty()
+                ? EnumSet.noneOf(WebhookEvent.class)
+                : EnumSet.copyOf(webhook.getEvents());
+        this.allEntries = webhook.isAllEntries();
+        this.entries = webhook.getEntries() == null ? Set.of() : Set.copyOf(webhook.getEntries());
+    }
+
+    public static WebhookMatcher compile(Webhook webhook) {
+        return new WebhookMatcher(webhook);
+    }
+
+    public Webhook getWebhook() {
+        return webhook;
+    }
+
+    public boolean matches(WebhookEvent webhookEvent, Event triggerEvent) {
+        boolean matchEvent = allEvents || events.contains(webhookEvent);
+        boolean matchEntry = allEntries || triggerEvent.getRelatedTo() == null || entries.contains(triggerEvent.getRelatedTo().getClientUrl());
+        return matchEvent && matchEntry;
+    }
+}
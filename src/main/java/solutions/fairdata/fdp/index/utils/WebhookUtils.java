@@ -33,50 +33,87 @@ import solutions.fairdata.fdp.index.entity.http.Exchange;
 import solutions.fairdata.fdp.index.entity.http.ExchangeDirection;
 import solutions.fairdata.fdp.index.entity.http.ExchangeState;
 import solutions.fairdata.fdp.index.entity.webhooks.Webhook;
+import solutions.fairdata.fdp.index.entity.webhooks.WebhookDeadLetter;
 import solutions.fairdata.fdp.index.entity.webhooks.WebhookEvent;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
-import java.math.BigInteger;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Stream;
+import java.util.stream.Collectors;
 
 public class WebhookUtils {
 
     private static final Integer VERSION = 1;
 
-    private static final HttpClient client = HttpClient.newBuilder()
-            .version(HttpClient.Version.HTTP_2)
-            .followRedirects(HttpClient.Redirect.ALWAYS)
-            .build();
+    private static final String HMAC_SHA256_ALGORITHM = "HmacSHA256";
 
-    private static boolean webhookMatches(Webhook webhook, WebhookEvent webhookEvent, Event triggerEvent) {
-        boolean matchEvent = webhook.isAllEvents() || webhook.getEvents().contains(webhookEvent);
-        boolean matchEntry = webhook.isAllEntries() || triggerEvent.getRelatedTo() == null || webhook.getEntries().contains(triggerEvent.getRelatedTo().getClientUrl());
-        return matchEvent && matchEntry && webhook.isEnabled();
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<MessageDigest> SHA1_DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    });
+
+    private static final ThreadLocal<Mac> HMAC_SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance(HMAC_SHA256_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    });
+
+    public static List<WebhookMatcher> compileMatchers(List<Webhook> webhooks) {
+        return webhooks.stream()
+                .filter(Webhook::isEnabled)
+                .map(WebhookMatcher::compile)
+                .collect(Collectors.toUnmodifiableList());
     }
 
-    public static Stream<Webhook> filterMatching(List<Webhook> webhooks, WebhookEvent webhookEvent, Event triggerEvent) {
-        return webhooks.parallelStream().filter(webhook -> WebhookUtils.webhookMatches(webhook, webhookEvent, triggerEvent));
+    public static List<Webhook> filterMatching(List<WebhookMatcher> matchers, WebhookEvent webhookEvent, Event triggerEvent) {
+        List<Webhook> matching = new ArrayList<>();
+        for (WebhookMatcher matcher : matchers) {
+            if (matcher.matches(webhookEvent, triggerEvent)) {
+                matching.add(matcher.getWebhook());
+            }
+        }
+        return matching;
     }
 
     public static Event prepareTriggerEvent(Webhook webhook, WebhookEvent webhookEvent, Event triggerEvent) {
         var webhookTrigger = new WebhookTrigger();
         webhookTrigger.setWebhook(webhook);
         webhookTrigger.setMatchedEvent(webhookEvent);
+        if (webhookEvent == WebhookEvent.EntryChanged) {
+            webhookTrigger.setChanges(triggerEvent.getMetadataRetrieval().getChanges());
+        }
         return new Event(VERSION, webhookTrigger, triggerEvent);
     }
 
+    public static Event prepareReplayEvent(Webhook webhook, WebhookDeadLetter deadLetter) {
+        var webhookTrigger = new WebhookTrigger();
+        webhookTrigger.setWebhook(webhook);
+        webhookTrigger.setMatchedEvent(deadLetter.getMatchedEvent());
+        webhookTrigger.setReplayOf(deadLetter.getEventUuid());
+        webhookTrigger.setChanges(deadLetter.getChanges());
+        return new Event(VERSION, webhookTrigger, deadLetter.getTriggeredBy(), deadLetter.getRelatedTo());
+    }
+
     public static Event preparePingEvent(HttpServletRequest request, Authentication authentication, UUID webhookUuid) {
         var webhookPing = new WebhookPing();
         webhookPing.setWebhookUuid(webhookUuid);
@@ -90,24 +127,70 @@ public class WebhookUtils {
         webhookPayload.setEvent(event.getWebhookTrigger().getMatchedEvent());
         webhookPayload.setClientUrl(event.getRelatedTo().getClientUrl());
         webhookPayload.setSecret(event.getWebhookTrigger().getWebhook().getSecret());
-        webhookPayload.setUuid(event.getUuid().toString());
+        // replayed delivery keeps UUID of the original event so subscribers can deduplicate
+        UUID replayOf = event.getWebhookTrigger().getReplayOf();
+        webhookPayload.setUuid((replayOf != null ? replayOf : event.getUuid()).toString());
         webhookPayload.setTimestamp(Instant.now().toString());
+        webhookPayload.setChanges(event.getWebhookTrigger().getChanges());
         return webhookPayload;
     }
 
-    public static String computeHashSignature(String value) throws NoSuchAlgorithmException {
-        MessageDigest digest = MessageDigest.getInstance("SHA-1");
+    public static String computeHashSignature(String value) {
+        MessageDigest digest = SHA1_DIGEST.get();
         digest.reset();
-        digest.update(value.getBytes(StandardCharsets.UTF_8));
-        return String.format("sha1=%040x", new BigInteger(1, digest.digest()));
+        return toHexSignature("sha1=", digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public static String computeHmacSignature(String value, String secret) {
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalArgumentException("Webhook secret is not set");
+        }
+        Mac mac = HMAC_SHA256.get();
+        try {
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_SHA256_ALGORITHM));
+        } catch (InvalidKeyException e) {
+            throw new IllegalArgumentException("Invalid webhook secret", e);
+        }
+        return toHexSignature("sha256=", mac.doFinal(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String toHexSignature(String prefix, byte[] hash) {
+        char[] result = new char[prefix.length() + hash.length * 2];
+        prefix.getChars(0, prefix.length(), result, 0);
+        int i = prefix.length();
+        for (byte b : hash) {
+            result[i++] = HEX_DIGITS[(b >> 4) & 0xF];
+            result[i++] = HEX_DIGITS[b & 0xF];
+        }
+        return new String(result);
+    }
+
+    /**
+     * Outcome of the exchange without headers and bodies (for triggers delivered in the same batch).
+     */
+    public static Exchange summarizeExchange(Exchange exchange) {
+        Exchange summary = new Exchange(exchange.getDirection());
+        summary.setState(exchange.getState());
+        summary.setError(exchange.getError());
+        summary.getRequest().setMethod(exchange.getRequest().getMethod());
+        summary.getRequest().setUrl(exchange.getRequest().getUrl());
+        summary.getResponse().setCode(exchange.getResponse().getCode());
+        return summary;
+    }
+
+    public static boolean isDelivered(Event event) {
+        Exchange ex = event.getWebhookTrigger().getExchange();
+        if (ex == null || ex.getState() != ExchangeState.Retrieved || ex.getResponse().getCode() == null) {
+            return false;
+        }
+        return ex.getResponse().getCode() >= 200 && ex.getResponse().getCode() < 300;
     }
 
-    public static void postWebhook(Event event, Duration timeout, String payload, String signature) {
+    public static Exchange postWebhook(Webhook webhook, Duration timeout, String payload, String signature) {
         var ex = new Exchange(ExchangeDirection.OUTGOING);
-        event.getWebhookTrigger().setExchange(ex);
         try {
             HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(event.getWebhookTrigger().getWebhook().getPayloadUrl()))
+                    .uri(URI.create(webhook.getPayloadUrl()))
                     .timeout(timeout)
                     .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON.toString())
                     .header("X-Signature", signature)
@@ -115,7 +198,7 @@ public class WebhookUtils {
                     .build();
             ex.getRequest().setFromHttpRequest(request);
             ex.setState(ExchangeState.Requested);
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = HttpClientUtils.send(request);
             ex.getResponse().setFromHttpResponse(response);
             ex.setState(ExchangeState.Retrieved);
         } catch (InterruptedException e) {
@@ -128,5 +211,6 @@ public class WebhookUtils {
             ex.setState(ExchangeState.Failed);
             ex.setError("IO error: " + e.getMessage());
         }
+        return ex;
     }
 }
@@ -28,9 +28,12 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
 import solutions.fairdata.fdp.index.entity.IndexEntryState;
+import solutions.fairdata.fdp.index.entity.RepositoryMetadata;
 import solutions.fairdata.fdp.index.entity.config.EventsConfig;
 import solutions.fairdata.fdp.index.service.EventService;
+import solutions.fairdata.fdp.index.service.HttpCacheService;
 import solutions.fairdata.fdp.index.service.IndexEntryService;
 
 import java.util.List;
@@ -38,6 +41,8 @@ import java.util.List;
 @Controller
 @RequestMapping("/entry")
 public class EntryController {
+    private static final int EVENTS_PAGE_SIZE = 10;
+
     @Autowired
     private IndexEntryService indexEntryService;
 
@@ -47,15 +52,22 @@ public class EntryController {
     @Autowired
     private EventsConfig eventsConfig;
 
+    @Autowired
+    private HttpCacheService httpCacheService;
+
     @GetMapping
-    public String home(Model model, @RequestParam String clientUrl) {
+    public String home(ServletWebRequest request, Model model, @RequestParam String clientUrl, @RequestParam(required = false) String before) {
+        if (httpCacheService.checkEntryNotModified(request, clientUrl)) {
+            return null;
+        }
         model.addAttribute("clientUrl", clientUrl);
         model.addAttribute("entry", indexEntryService.findEntry(clientUrl));
-        model.addAttribute("events", eventService.getEvents(clientUrl));
+        model.addAttribute("events", eventService.getEventTimeline(clientUrl, before, EVENTS_PAGE_SIZE));
+        model.addAttribute("eventsBefore", before);
         model.addAttribute("IndexEntryState", IndexEntryState.class);
         model.addAttribute("pingValidDuration", eventsConfig.getPingValidDuration());
-        model.addAttribute("specialMetadata", List.of("title", "version", "publisher", "publisherName"));
-        model.addAttribute("uriMetadata", List.of("country"));
+        model.addAttribute("specialMetadata", List.of(RepositoryMetadata.KEY_TITLE, RepositoryMetadata.KEY_VERSION, RepositoryMetadata.KEY_PUBLISHER, RepositoryMetadata.KEY_PUBLISHER_NAME));
+        model.addAttribute("uriMetadata", List.of(RepositoryMetadata.KEY_COUNTRY));
         return "entry";
     }
 }
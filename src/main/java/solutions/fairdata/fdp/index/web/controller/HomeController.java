@@ -31,8 +31,10 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
 import solutions.fairdata.fdp.index.entity.IndexEntryState;
 import solutions.fairdata.fdp.index.entity.config.EventsConfig;
+import solutions.fairdata.fdp.index.service.HttpCacheService;
 import solutions.fairdata.fdp.index.service.IndexEntryService;
 
 @Controller
@@ -44,12 +46,18 @@ public class HomeController {
     @Autowired
     private EventsConfig eventsConfig;
 
+    @Autowired
+    private HttpCacheService httpCacheService;
+
     @GetMapping
-    public String home(Model model, @SortDefault(sort = "modificationTime", direction = Sort.Direction.DESC) Pageable pageable, @RequestParam(defaultValue = "active") String state) {
+    public String home(ServletWebRequest request, Model model, @SortDefault(sort = "modificationTime", direction = Sort.Direction.DESC) Pageable pageable, @RequestParam(defaultValue = "active") String state) {
         var sort = pageable.getSort().stream()
             .findFirst()
             .map(o -> o.getProperty() + "," + o.getDirection().name().toLowerCase())
             .orElse("");
+        if (httpCacheService.checkNotModified(request)) {
+            return null;
+        }
 
         model.addAttribute("entries", indexEntryService.getEntriesPage(pageable, state));
         model.addAttribute("pingValidDuration", eventsConfig.getPingValidDuration());
@@ -0,0 +1,62 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.web.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
+import solutions.fairdata.fdp.index.service.HttpCacheService;
+import solutions.fairdata.fdp.index.service.SearchService;
+
+@Controller
+@RequestMapping("/search")
+public class SearchController {
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private HttpCacheService httpCacheService;
+
+    @GetMapping
+    public String search(ServletWebRequest request, Model model,
+                         @RequestParam(required = false) String q,
+                         @RequestParam(required = false) String country,
+                         @RequestParam(required = false) String publisher,
+                         @RequestParam(defaultValue = "all") String state,
+                         @RequestParam(defaultValue = "0") int page,
+                         @RequestParam(defaultValue = "20") int size) {
+        if (httpCacheService.checkNotModified(request)) {
+            return null;
+        }
+        model.addAttribute("result", searchService.search(q, country, publisher, state, page, size));
+        model.addAttribute("q", q);
+        model.addAttribute("country", country);
+        model.addAttribute("publisher", publisher);
+        model.addAttribute("state", state);
+        return "search";
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.web.filters;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import solutions.fairdata.fdp.index.entity.config.HttpCacheConfig;
+import solutions.fairdata.fdp.index.service.HttpCacheService;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+@Component
+public class HomePageCacheFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private HttpCacheService httpCacheService;
+
+    @Autowired
+    private HttpCacheConfig httpCacheConfig;
+
+    private final Map<String, CachedPage> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedPage> eldest) {
+            return size() > httpCacheConfig.getPageCacheSize();
+        }
+    };
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !httpCacheConfig.isPageCacheEnabled()
+                || !HttpMethod.GET.matches(request.getMethod())
+                || !request.getRequestURI().substring(request.getContextPath().length()).equals("/")
+                || request.getHeader(HttpHeaders.AUTHORIZATION) != null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws IOException, ServletException {
+        String key = Objects.toString(request.getQueryString(), "");
+        String etag = httpCacheService.getETag();
+        CachedPage page;
+        synchronized (pages) {
+            page = pages.get(key);
+        }
+        if (page != null && page.etag.equals(etag) && page.expires.isAfter(Instant.now())) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, httpCacheService.getCacheControl().getHeaderValue());
+            // same If-None-Match handling (lists, weak tags, *) as the controllers, also sets ETag
+            if (new ServletWebRequest(request, response).checkNotModified(page.etag)) {
+                return;
+            }
+            response.setContentType(page.contentType);
+            response.setContentLength(page.body.length);
+            response.getOutputStream().write(page.body);
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, wrapper);
+        String renderedETag = wrapper.getHeader(HttpHeaders.ETAG);
+        if (wrapper.getStatus() == HttpServletResponse.SC_OK && renderedETag != null) {
+            CachedPage rendered = new CachedPage(
+                    renderedETag, wrapper.getContentType(), wrapper.getContentAsByteArray(),
+                    Instant.now().plus(httpCacheConfig.getPageCacheTtl())
+            );
+            synchronized (pages) {
+                pages.put(key, rendered);
+            }
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private static class CachedPage {
+        private final String etag;
+        private final String contentType;
+        private final byte[] body;
+        private final Instant expires;
+
+        CachedPage(String etag, String contentType, byte[] body, Instant expires) {
+            this.etag = etag;
+            this.contentType = contentType;
+            this.body = body;
+            this.expires = expires;
+        }
+    }
+}
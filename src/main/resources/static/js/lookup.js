@@ -0,0 +1,27 @@
+jQuery(document).ready(() => {
+    jQuery('input[data-lookup]').each(function () {
+        const input = jQuery(this)
+        const list = jQuery('#' + input.attr('list'))
+        let timer = null
+        let clientUrls = []
+
+        input.on('input', () => {
+            const q = input.val()
+            if (clientUrls.includes(q)) {
+                window.location = input.data('entry') + '?clientUrl=' + encodeURIComponent(q)
+                return
+            }
+            clearTimeout(timer)
+            timer = setTimeout(() => {
+                if (q.length < 2) {
+                    return
+                }
+                jQuery.getJSON(input.data('lookup'), { q: q, limit: 10 }, hits => {
+                    clientUrls = hits.map(hit => hit.clientUrl)
+                    list.empty()
+                    hits.forEach(hit => list.append(jQuery('<option>').attr('value', hit.clientUrl).text(hit.title || hit.clientUrl)))
+                })
+            }, 150)
+        })
+    })
+})
@@ -0,0 +1,236 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.acceptance.api.admin;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import solutions.fairdata.fdp.index.WebIntegrationTest;
+import solutions.fairdata.fdp.index.database.repository.EventRepository;
+import solutions.fairdata.fdp.index.database.repository.IndexEntryRepository;
+import solutions.fairdata.fdp.index.database.repository.TokenRepository;
+import solutions.fairdata.fdp.index.database.repository.WebhookRepository;
+import solutions.fairdata.fdp.index.entity.IndexEntry;
+import solutions.fairdata.fdp.index.entity.MetadataSnapshot;
+import solutions.fairdata.fdp.index.entity.Token;
+import solutions.fairdata.fdp.index.entity.events.Event;
+import solutions.fairdata.fdp.index.entity.events.EventType;
+import solutions.fairdata.fdp.index.entity.events.MetadataChange;
+import solutions.fairdata.fdp.index.entity.webhooks.Webhook;
+import solutions.fairdata.fdp.index.entity.webhooks.WebhookEvent;
+import solutions.fairdata.fdp.index.fixtures.IndexEntryFixtures;
+import solutions.fairdata.fdp.index.fixtures.MetadataFixtures;
+import solutions.fairdata.fdp.index.fixtures.TokenFixtures;
+import solutions.fairdata.fdp.index.service.EntryChangeService;
+import solutions.fairdata.fdp.index.utils.TestServer;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.StringContains.containsString;
+
+@DisplayName("POST /admin/trigger (metadata changes)")
+public class TriggerChanges_POST_Test extends WebIntegrationTest {
+
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private TokenRepository tokenRepository;
+    @Autowired
+    private IndexEntryRepository indexEntryRepository;
+    @Autowired
+    private WebhookRepository webhookRepository;
+    @Autowired
+    private EntryChangeService entryChangeService;
+
+    private final ParameterizedTypeReference<Void> responseType = new ParameterizedTypeReference<>() {};
+
+    private TestServer server;
+
+    private Token token;
+
+    private String clientUrl;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = TestServer.start();
+        clientUrl = server.url("/fdp");
+        token = TokenFixtures.adminToken();
+        IndexEntry entry = IndexEntryFixtures.activeEntry(clientUrl);
+        entry.setLastRetrievalTime(Instant.now().minus(Duration.ofHours(1)));
+        Webhook webhook = new Webhook();
+        webhook.setPayloadUrl(server.url("/webhook"));
+        webhook.setSecret("mySecret");
+        webhook.setEvents(List.of(WebhookEvent.EntryChanged));
+        webhook.setAllEntries(true);
+        webhook.setEnabled(true);
+        mongoTemplate.getDb().drop();
+        tokenRepository.save(token);
+        indexEntryRepository.save(entry);
+        webhookRepository.save(webhook);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.close();
+    }
+
+    private void serveMetadata(String title) {
+        server.respond("/fdp", 200, MetadataFixtures.repositoryMetadata(clientUrl, title, "Example Publisher"));
+    }
+
+    private ResponseEntity<Void> trigger() {
+        RequestEntity<Void> request = RequestEntity
+                .post(URI.create("/admin/trigger?clientUrl=" + clientUrl))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .build();
+        return client.exchange(request, responseType);
+    }
+
+    private void retrievedAgo(Duration ago) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("clientUrl").is(clientUrl)),
+                Update.update("lastRetrievalTime", Instant.now().minus(ago)),
+                IndexEntry.class
+        );
+    }
+
+    private List<Event> retrievals() {
+        return eventRepository.getAllByType(EventType.MetadataRetrieval);
+    }
+
+    private List<Event> entryChangedTriggers() {
+        return eventRepository.getAllByType(EventType.WebhookTrigger).stream()
+                .filter(event -> event.getWebhookTrigger().getMatchedEvent() == WebhookEvent.EntryChanged)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("HTTP 204: changed metadata emit EntryChanged with diff")
+    public void res204_changedMetadata() {
+        // GIVEN (prepare data)
+        serveMetadata("New title");
+        String tokenBefore = entryChangeService.getLatestToken();
+
+        // WHEN
+        ResponseEntity<Void> result = trigger();
+        List<Event> retrievals = retrievals();
+        List<Event> triggers = entryChangedTriggers();
+        List<TestServer.ReceivedRequest> delivered = server.getReceived("/webhook");
+
+        // THEN
+        assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.NO_CONTENT)));
+        assertThat("One MetadataRetrieval event is created", retrievals.size(), is(equalTo(1)));
+        assertThat("Retrieval is marked as changed", retrievals.get(0).getMetadataRetrieval().getChanged(), is(equalTo(true)));
+        assertThat("Title change is recorded", retrievals.get(0).getMetadataRetrieval().getChanges().contains(
+                new MetadataChange("title", "Example FDP", "New title")), is(equalTo(true)));
+        assertThat("EntryChanged webhook is triggered", triggers.size(), is(equalTo(1)));
+        assertThat("Webhook trigger carries the diff", triggers.get(0).getWebhookTrigger().getChanges(),
+                is(equalTo(retrievals.get(0).getMetadataRetrieval().getChanges())));
+        assertThat("Webhook is delivered", delivered.size(), is(equalTo(1)));
+        assertThat("Payload is EntryChanged", delivered.get(0).getBody(), containsString("\"EntryChanged\""));
+        assertThat("Payload contains the diff", delivered.get(0).getBody(), containsString("\"newValue\":\"New title\""));
+        assertThat("Change is published to the change feed", entryChangeService.getLatestToken(), is(not(equalTo(tokenBefore))));
+    }
+
+    @Test
+    @DisplayName("HTTP 204: unchanged metadata emit no EntryChanged and no change")
+    public void res204_unchangedMetadata() {
+        // GIVEN (prepare data)
+        serveMetadata("New title");
+        trigger();
+        retrievedAgo(Duration.ofHours(1));
+        String tokenBefore = entryChangeService.getLatestToken();
+
+        // WHEN
+        ResponseEntity<Void> result = trigger();
+        List<Event> retrievals = retrievals();
+
+        // THEN
+        assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.NO_CONTENT)));
+        assertThat("Two MetadataRetrieval events are created", retrievals.size(), is(equalTo(2)));
+        assertThat("Second retrieval is not marked as changed", retrievals.get(1).getMetadataRetrieval().getChanged(), is(equalTo(false)));
+        assertThat("No diff is recorded", retrievals.get(1).getMetadataRetrieval().getChanges(), is(equalTo(null)));
+        assertThat("EntryChanged webhook is triggered only once", entryChangedTriggers().size(), is(equalTo(1)));
+        assertThat("Webhook is delivered only once", server.getReceived("/webhook").size(), is(equalTo(1)));
+        assertThat("Nothing is published to the change feed", entryChangeService.getLatestToken(), is(equalTo(tokenBefore)));
+    }
+
+    @Test
+    @DisplayName("HTTP 204: unchanged metadata reuse the stored snapshot")
+    public void res204_unchangedSnapshot() {
+        // GIVEN (prepare data)
+        serveMetadata("New title");
+        trigger();
+        retrievedAgo(Duration.ofHours(1));
+
+        // WHEN
+        trigger();
+        List<Event> retrievals = retrievals();
+        List<MetadataSnapshot> snapshots = mongoTemplate.findAll(MetadataSnapshot.class);
+
+        // THEN
+        assertThat("Only one snapshot is stored", snapshots.size(), is(equalTo(1)));
+        assertThat("First retrieval refers to the snapshot", retrievals.get(0).getMetadataRetrieval().getSnapshot(), is(equalTo(snapshots.get(0).getHash())));
+        assertThat("Second retrieval refers to the same snapshot", retrievals.get(1).getMetadataRetrieval().getSnapshot(), is(equalTo(snapshots.get(0).getHash())));
+        assertThat("Entry refers to the snapshot", indexEntryRepository.findByClientUrl(clientUrl).get().getMetadataHash(), is(equalTo(snapshots.get(0).getHash())));
+        assertThat("First retrieval keeps the response body", retrievals.get(0).getMetadataRetrieval().getExchange().getResponse().getBody() != null, is(equalTo(true)));
+        assertThat("Second retrieval drops the response body", retrievals.get(1).getMetadataRetrieval().getExchange().getResponse().getBody(), is(equalTo(null)));
+    }
+
+    @Test
+    @DisplayName("HTTP 204: unchanged metadata of inactive entry publish the entry becoming active")
+    public void res204_unchangedBecomesActive() {
+        // GIVEN (prepare data)
+        serveMetadata("New title");
+        trigger();
+        retrievedAgo(Duration.ofDays(30));
+        String tokenBefore = entryChangeService.getLatestToken();
+
+        // WHEN
+        trigger();
+        List<Event> retrievals = retrievals();
+
+        // THEN
+        assertThat("Second retrieval is not marked as changed", retrievals.get(1).getMetadataRetrieval().getChanged(), is(equalTo(false)));
+        assertThat("EntryChanged webhook is triggered only once", entryChangedTriggers().size(), is(equalTo(1)));
+        assertThat("Entry becoming active is published to the change feed", entryChangeService.getLatestToken(), is(not(equalTo(tokenBefore))));
+    }
+}
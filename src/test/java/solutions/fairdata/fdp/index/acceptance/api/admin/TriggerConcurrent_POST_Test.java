@@ -0,0 +1,134 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.acceptance.api.admin;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import solutions.fairdata.fdp.index.WebIntegrationTest;
+import solutions.fairdata.fdp.index.database.repository.EventRepository;
+import solutions.fairdata.fdp.index.database.repository.IndexEntryRepository;
+import solutions.fairdata.fdp.index.database.repository.TokenRepository;
+import solutions.fairdata.fdp.index.entity.IndexEntry;
+import solutions.fairdata.fdp.index.entity.Token;
+import solutions.fairdata.fdp.index.entity.events.Event;
+import solutions.fairdata.fdp.index.entity.events.EventType;
+import solutions.fairdata.fdp.index.fixtures.IndexEntryFixtures;
+import solutions.fairdata.fdp.index.fixtures.MetadataFixtures;
+import solutions.fairdata.fdp.index.fixtures.TokenFixtures;
+import solutions.fairdata.fdp.index.utils.AwaitUtils;
+import solutions.fairdata.fdp.index.utils.TestServer;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+@DisplayName("POST /admin/trigger (concurrent retrievals)")
+public class TriggerConcurrent_POST_Test extends WebIntegrationTest {
+
+    private static final Duration DELAY = Duration.ofSeconds(2);
+
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private TokenRepository tokenRepository;
+    @Autowired
+    private IndexEntryRepository indexEntryRepository;
+
+    private final ParameterizedTypeReference<Void> responseType = new ParameterizedTypeReference<>() {};
+
+    private TestServer server;
+
+    private Token token;
+
+    private String clientUrl;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = TestServer.start();
+        clientUrl = server.url("/fdp");
+        token = TokenFixtures.adminToken();
+        IndexEntry entry = IndexEntryFixtures.activeEntry(clientUrl);
+        entry.setLastRetrievalTime(Instant.now().minus(Duration.ofHours(1)));
+        mongoTemplate.getDb().drop();
+        tokenRepository.save(token);
+        indexEntryRepository.save(entry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.close();
+    }
+
+    private ResponseEntity<Void> trigger() {
+        RequestEntity<Void> request = RequestEntity
+                .post(URI.create("/admin/trigger?clientUrl=" + clientUrl))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .build();
+        return client.exchange(request, responseType);
+    }
+
+    @Test
+    @DisplayName("HTTP 204: concurrent retrieval of the same entry is skipped without waiting")
+    public void res204_concurrentSkipped() throws Exception {
+        // GIVEN (slow repository)
+        server.respond("/fdp", 200, MetadataFixtures.repositoryMetadata(clientUrl, "Slow Repository", "Example Publisher"), DELAY);
+
+        // AND (first retrieval is running)
+        CompletableFuture<ResponseEntity<Void>> first = CompletableFuture.supplyAsync(this::trigger);
+        assertThat("First retrieval is running", AwaitUtils.await(() -> server.getReceived("/fdp").size() == 1), is(equalTo(true)));
+
+        // WHEN
+        Instant started = Instant.now();
+        ResponseEntity<Void> second = trigger();
+        Duration elapsed = Duration.between(started, Instant.now());
+
+        // THEN
+        assertThat("Second trigger responds with code 204", second.getStatusCode(), is(equalTo(HttpStatus.NO_CONTENT)));
+        assertThat("Second trigger does not wait for the running retrieval", elapsed.compareTo(DELAY) < 0, is(equalTo(true)));
+        assertThat("First trigger responds with code 204", first.get().getStatusCode(), is(equalTo(HttpStatus.NO_CONTENT)));
+        assertThat("Repository is contacted once", server.getReceived("/fdp").size(), is(equalTo(1)));
+        List<Event> retrievals = eventRepository.getAllByType(EventType.MetadataRetrieval);
+        assertThat("Both retrievals are recorded", retrievals.size(), is(equalTo(2)));
+        List<Event> skipped = retrievals.stream()
+                .filter(event -> "Retrieval already running (skipped)".equals(event.getMetadataRetrieval().getError()))
+                .collect(Collectors.toList());
+        assertThat("One retrieval is skipped", skipped.size(), is(equalTo(1)));
+        assertThat("Skipped retrieval is finished", skipped.get(0).getFinished() != null, is(equalTo(true)));
+        assertThat("Entry is retrieved by the running one", indexEntryRepository.findByClientUrl(clientUrl).get().getCurrentMetadata().getTitle(), is(equalTo("Slow Repository")));
+    }
+}
@@ -36,13 +36,17 @@ import solutions.fairdata.fdp.index.database.repository.EventRepository;
 import solutions.fairdata.fdp.index.database.repository.IndexEntryRepository;
 import solutions.fairdata.fdp.index.database.repository.TokenRepository;
 import solutions.fairdata.fdp.index.entity.IndexEntry;
+import solutions.fairdata.fdp.index.entity.IndexEntryState;
 import solutions.fairdata.fdp.index.entity.Token;
 import solutions.fairdata.fdp.index.entity.events.Event;
 import solutions.fairdata.fdp.index.entity.events.EventType;
 import solutions.fairdata.fdp.index.fixtures.IndexEntryFixtures;
 import solutions.fairdata.fdp.index.fixtures.TokenFixtures;
+import solutions.fairdata.fdp.index.utils.AwaitUtils;
 
 import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -186,6 +190,45 @@ public class Trigger_POST_Test extends WebIntegrationTest {
         assertThat("Records correct client URL as null", events.get(0).getAdminTrigger().getClientUrl(), is(equalTo(null)));
     }
 
+    @Test
+    @DisplayName("HTTP 204: trigger all skips backed-off and dead entries")
+    public void res204_triggerAllSkipsBackedOff() {
+        // GIVEN (prepare data)
+        IndexEntry backedOff = IndexEntryFixtures.entryExample();
+        backedOff.setState(IndexEntryState.Unreachable);
+        backedOff.setFailureCount(3);
+        backedOff.setUnreachableSince(Instant.now().minus(Duration.ofHours(1)));
+        backedOff.setNextRetryTime(Instant.now().plus(Duration.ofHours(1)));
+        IndexEntry dead = IndexEntryFixtures.activeEntry("http://dead.example.com");
+        dead.setState(IndexEntryState.Unreachable);
+        dead.setFailureCount(10);
+        dead.setUnreachableSince(Instant.now().minus(Duration.ofDays(60)));
+        IndexEntry due = IndexEntryFixtures.activeEntry("http://localhost:1/due");
+        due.setLastRetrievalTime(Instant.now().minus(Duration.ofDays(1)));
+        Token token = TokenFixtures.adminToken();
+        mongoTemplate.getDb().drop();
+        indexEntryRepository.saveAll(List.of(backedOff, dead, due));
+        tokenRepository.save(token);
+
+        // AND (prepare request)
+        RequestEntity<Void> request = RequestEntity
+                .post(url())
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .build();
+
+        // WHEN
+        ResponseEntity<Void> result = client.exchange(request, responseType);
+        boolean finished = AwaitUtils.await(() -> eventRepository.getAllByType(EventType.MetadataRetrieval).stream()
+                .anyMatch(event -> event.getFinished() != null));
+        List<Event> retrievals = eventRepository.getAllByType(EventType.MetadataRetrieval);
+
+        // THEN
+        assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.NO_CONTENT)));
+        assertThat("Retrieval of due entry finishes", finished, is(equalTo(true)));
+        assertThat("Only one MetadataRetrieval event is created", retrievals.size(), is(equalTo(1)));
+        assertThat("Only due entry is retrieved", retrievals.get(0).getRelatedTo().getClientUrl(), is(equalTo(due.getClientUrl())));
+    }
+
     @Test
     @DisplayName("HTTP 404: trigger non-existing")
     public void res404_triggerOne() {
@@ -0,0 +1,211 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.acceptance.api.admin;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import solutions.fairdata.fdp.index.WebIntegrationTest;
+import solutions.fairdata.fdp.index.database.repository.TokenRepository;
+import solutions.fairdata.fdp.index.database.repository.WebhookDeadLetterRepository;
+import solutions.fairdata.fdp.index.database.repository.WebhookRepository;
+import solutions.fairdata.fdp.index.entity.IndexEntryReference;
+import solutions.fairdata.fdp.index.entity.Token;
+import solutions.fairdata.fdp.index.entity.webhooks.Webhook;
+import solutions.fairdata.fdp.index.entity.webhooks.WebhookDeadLetter;
+import solutions.fairdata.fdp.index.entity.webhooks.WebhookEvent;
+import solutions.fairdata.fdp.index.fixtures.IndexEntryFixtures;
+import solutions.fairdata.fdp.index.fixtures.TokenFixtures;
+import solutions.fairdata.fdp.index.utils.AwaitUtils;
+import solutions.fairdata.fdp.index.utils.TestServer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+@DisplayName("POST /admin/webhooks/dead-letters/replay")
+public class WebhookDeadLetters_Replay_POST_Test extends WebIntegrationTest {
+
+    @Autowired
+    private TokenRepository tokenRepository;
+    @Autowired
+    private WebhookRepository webhookRepository;
+    @Autowired
+    private WebhookDeadLetterRepository webhookDeadLetterRepository;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final ParameterizedTypeReference<Void> responseType = new ParameterizedTypeReference<>() {};
+
+    private URI url(UUID webhook) {
+        return URI.create("/admin/webhooks/dead-letters/replay?webhook=" + webhook);
+    }
+
+    private Webhook unreachableWebhook() {
+        Webhook webhook = new Webhook();
+        webhook.setPayloadUrl("http://localhost:1/webhook");
+        webhook.setSecret("mySecret");
+        webhook.setAllEvents(true);
+        webhook.setAllEntries(true);
+        webhook.setEnabled(true);
+        return webhook;
+    }
+
+    private WebhookDeadLetter deadLetter(Webhook webhook) {
+        WebhookDeadLetter deadLetter = new WebhookDeadLetter();
+        deadLetter.setWebhookUuid(webhook.getUuid());
+        deadLetter.setEventUuid(UUID.randomUUID());
+        deadLetter.setMatchedEvent(WebhookEvent.EntryValid);
+        deadLetter.setRelatedTo(IndexEntryReference.of(IndexEntryFixtures.entryExample()));
+        deadLetter.setError("Response code 503");
+        deadLetter.setLastFailure(Instant.now());
+        return deadLetter;
+    }
+
+    @Test
+    @DisplayName("HTTP 403: non-admin token")
+    public void res403_nonAdminToken() {
+        // GIVEN (prepare data)
+        Token token = TokenFixtures.noRoleToken();
+        mongoTemplate.getDb().drop();
+        tokenRepository.save(token);
+
+        // AND (prepare request)
+        RequestEntity<Void> request = RequestEntity
+                .post(url(UUID.randomUUID()))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .build();
+
+        // WHEN
+        ResponseEntity<Void> result = client.exchange(request, responseType);
+
+        // THEN
+        assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.FORBIDDEN)));
+    }
+
+    @Test
+    @DisplayName("HTTP 404: non-existing webhook")
+    public void res404_nonExistingWebhook() {
+        // GIVEN (prepare data)
+        Token token = TokenFixtures.adminToken();
+        mongoTemplate.getDb().drop();
+        tokenRepository.save(token);
+
+        // AND (prepare request)
+        RequestEntity<Void> request = RequestEntity
+                .post(url(UUID.randomUUID()))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .build();
+
+        // WHEN
+        ResponseEntity<Void> result = client.exchange(request, responseType);
+
+        // THEN
+        assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.NOT_FOUND)));
+    }
+
+    @Test
+    @DisplayName("HTTP 202: replay keeps undelivered dead letters")
+    public void res202_replayUndelivered() {
+        // GIVEN (prepare data)
+        Token token = TokenFixtures.adminToken();
+        Webhook webhook = unreachableWebhook();
+        mongoTemplate.getDb().drop();
+        tokenRepository.save(token);
+        webhookRepository.save(webhook);
+        webhookDeadLetterRepository.saveAll(List.of(deadLetter(webhook), deadLetter(webhook)));
+
+        // AND (prepare request)
+        RequestEntity<Void> request = RequestEntity
+                .post(url(webhook.getUuid()))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .build();
+
+        // WHEN
+        ResponseEntity<Void> result = client.exchange(request, responseType);
+        boolean replayed = AwaitUtils.await(() -> webhookDeadLetterRepository.findAllByWebhookUuid(webhook.getUuid()).stream()
+                .allMatch(deadLetter -> deadLetter.getAttempts() == 2));
+        List<WebhookDeadLetter> deadLetters = webhookDeadLetterRepository.findAllByWebhookUuid(webhook.getUuid());
+
+        // THEN
+        assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.ACCEPTED)));
+        assertThat("Replay finishes", replayed, is(equalTo(true)));
+        assertThat("No new dead letters are created", deadLetters.size(), is(equalTo(2)));
+        assertThat("Attempts are counted", deadLetters.get(0).getAttempts(), is(equalTo(2)));
+        assertThat("Attempts are counted", deadLetters.get(1).getAttempts(), is(equalTo(2)));
+    }
+
+    @Test
+    @DisplayName("HTTP 202: replay delivers batches with original event UUIDs")
+    public void res202_replayBatches() throws IOException {
+        try (TestServer server = TestServer.start()) {
+            // GIVEN (prepare data)
+            Token token = TokenFixtures.adminToken();
+            Webhook webhook = unreachableWebhook();
+            webhook.setPayloadUrl(server.url("/webhook"));
+            webhook.setBatching(true);
+            List<WebhookDeadLetter> deadLetters = List.of(deadLetter(webhook), deadLetter(webhook), deadLetter(webhook), deadLetter(webhook));
+            mongoTemplate.getDb().drop();
+            tokenRepository.save(token);
+            webhookRepository.save(webhook);
+            webhookDeadLetterRepository.saveAll(deadLetters);
+
+            // AND (prepare request)
+            RequestEntity<Void> request = RequestEntity
+                    .post(url(webhook.getUuid()))
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                    .build();
+
+            // WHEN
+            ResponseEntity<Void> result = client.exchange(request, responseType);
+            boolean replayed = AwaitUtils.await(() -> webhookDeadLetterRepository.findAllByWebhookUuid(webhook.getUuid()).isEmpty());
+            List<String> bodies = server.getReceived("/webhook").stream()
+                    .map(TestServer.ReceivedRequest::getBody)
+                    .collect(Collectors.toList());
+
+            // THEN (batch size is 3 in tests)
+            assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.ACCEPTED)));
+            assertThat("Delivered dead letters are removed", replayed, is(equalTo(true)));
+            assertThat("Dead letters are delivered in batches", bodies.size(), is(equalTo(2)));
+            assertThat("Batches are JSON arrays", bodies.stream().allMatch(body -> body.startsWith("[")), is(equalTo(true)));
+            assertThat("First batch is full", bodies.get(0).split("\"uuid\"", -1).length - 1, is(equalTo(3)));
+            for (WebhookDeadLetter deadLetter : deadLetters) {
+                assertThat("Payload has UUID of the original event", String.join("", bodies)
+                        .contains("\"uuid\":\"" + deadLetter.getEventUuid() + "\""), is(equalTo(true)));
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.acceptance.api.admin;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import solutions.fairdata.fdp.index.WebIntegrationTest;
+import solutions.fairdata.fdp.index.api.dto.WebhookDTO;
+import solutions.fairdata.fdp.index.database.repository.TokenRepository;
+import solutions.fairdata.fdp.index.database.repository.WebhookRepository;
+import solutions.fairdata.fdp.index.entity.Token;
+import solutions.fairdata.fdp.index.entity.webhooks.Webhook;
+import solutions.fairdata.fdp.index.fixtures.TokenFixtures;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+@DisplayName("POST /admin/webhooks/import")
+public class WebhooksImport_POST_Test extends WebIntegrationTest {
+
+    @Autowired
+    private TokenRepository tokenRepository;
+    @Autowired
+    private WebhookRepository webhookRepository;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final ParameterizedTypeReference<List<WebhookDTO>> responseType = new ParameterizedTypeReference<>() {};
+
+    private URI url() {
+        return URI.create("/admin/webhooks/import");
+    }
+
+    private WebhookDTO webhookDTO(String payloadUrl) {
+        WebhookDTO webhookDTO = new WebhookDTO();
+        webhookDTO.setPayloadUrl(payloadUrl);
+        webhookDTO.setSecret("mySecret");
+        webhookDTO.setAllEvents(true);
+        webhookDTO.setAllEntries(true);
+        webhookDTO.setEnabled(true);
+        return webhookDTO;
+    }
+
+    @Test
+    @DisplayName("HTTP 400: invalid webhook")
+    public void res400_invalidWebhook() {
+        // GIVEN (prepare data)
+        Token token = TokenFixtures.adminToken();
+        mongoTemplate.getDb().drop();
+        tokenRepository.save(token);
+
+        // AND (prepare request)
+        RequestEntity<List<WebhookDTO>> request = RequestEntity
+                .post(url())
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .body(List.of(webhookDTO("http://example.com/webhook"), webhookDTO("not a URL")));
+
+        // WHEN
+        ResponseEntity<Void> result = client.exchange(request, Void.class);
+
+        // THEN
+        assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.BAD_REQUEST)));
+        assertThat("No webhook is imported", webhookRepository.count(), is(equalTo(0L)));
+    }
+
+    @Test
+    @DisplayName("HTTP 400: duplicate UUID")
+    public void res400_duplicateUuid() {
+        // GIVEN (prepare data)
+        Token token = TokenFixtures.adminToken();
+        mongoTemplate.getDb().drop();
+        tokenRepository.save(token);
+        String uuid = UUID.randomUUID().toString();
+        WebhookDTO first = webhookDTO("http://example.com/first");
+        first.setUuid(uuid);
+        WebhookDTO second = webhookDTO("http://example.com/second");
+        second.setUuid(uuid);
+
+        // AND (prepare request)
+        RequestEntity<List<WebhookDTO>> request = RequestEntity
+                .post(url())
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .body(List.of(first, second));
+
+        // WHEN
+        ResponseEntity<Void> result = client.exchange(request, Void.class);
+
+        // THEN
+        assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.BAD_REQUEST)));
+        assertThat("No webhook is imported", webhookRepository.count(), is(equalTo(0L)));
+    }
+
+    @Test
+    @DisplayName("HTTP 200: import creates and updates webhooks")
+    public void res200_import() {
+        // GIVEN (prepare data)
+        Token token = TokenFixtures.adminToken();
+        Webhook existing = new Webhook();
+        existing.setPayloadUrl("http://example.com/old");
+        existing.setSecret("oldSecret");
+        mongoTemplate.getDb().drop();
+        tokenRepository.save(token);
+        webhookRepository.save(existing);
+        List<WebhookDTO> webhookDTOs = new ArrayList<>();
+        WebhookDTO update = webhookDTO("http://example.com/new");
+        update.setUuid(existing.getUuid().toString());
+        update.setSecret(null);
+        webhookDTOs.add(update);
+        for (int i = 0; i < 10; i++) {
+            webhookDTOs.add(webhookDTO("http://example" + i + ".com/webhook"));
+        }
+
+        // AND (prepare request)
+        RequestEntity<List<WebhookDTO>> request = RequestEntity
+                .post(url())
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .body(webhookDTOs);
+
+        // WHEN
+        ResponseEntity<List<WebhookDTO>> result = client.exchange(request, responseType);
+        Webhook updated = webhookRepository.findByUuid(existing.getUuid()).orElseThrow();
+
+        // THEN
+        assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.OK)));
+        assertThat("All webhooks are returned", result.getBody().size(), is(equalTo(11)));
+        assertThat("Webhooks are stored", webhookRepository.count(), is(equalTo(11L)));
+        assertThat("Existing webhook is updated", updated.getPayloadUrl(), is(equalTo("http://example.com/new")));
+        assertThat("Existing secret is kept", updated.getSecret(), is(equalTo("oldSecret")));
+    }
+}
@@ -0,0 +1,211 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.acceptance.api.admin;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import solutions.fairdata.fdp.index.WebIntegrationTest;
+import solutions.fairdata.fdp.index.api.dto.WebhookDTO;
+import solutions.fairdata.fdp.index.database.repository.TokenRepository;
+import solutions.fairdata.fdp.index.database.repository.WebhookRepository;
+import solutions.fairdata.fdp.index.entity.Token;
+import solutions.fairdata.fdp.index.entity.config.WebhooksConfig;
+import solutions.fairdata.fdp.index.entity.webhooks.Webhook;
+import solutions.fairdata.fdp.index.entity.webhooks.WebhookEvent;
+import solutions.fairdata.fdp.index.entity.webhooks.WebhookSignature;
+import solutions.fairdata.fdp.index.fixtures.TokenFixtures;
+import solutions.fairdata.fdp.index.service.WebhookService;
+import solutions.fairdata.fdp.index.utils.WebhookMatcher;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+@DisplayName("POST /admin/webhooks")
+public class Webhooks_POST_Test extends WebIntegrationTest {
+
+    @Autowired
+    private TokenRepository tokenRepository;
+    @Autowired
+    private WebhookRepository webhookRepository;
+    @Autowired
+    private WebhookService webhookService;
+    @Autowired
+    private WebhooksConfig webhooksConfig;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final ParameterizedTypeReference<WebhookDTO> responseType = new ParameterizedTypeReference<>() {};
+
+    private URI url() {
+        return URI.create("/admin/webhooks");
+    }
+
+    private WebhookDTO webhookExample() {
+        WebhookDTO webhookDTO = new WebhookDTO();
+        webhookDTO.setPayloadUrl("http://example.com/webhook");
+        webhookDTO.setSecret("mySecret");
+        webhookDTO.setEvents(List.of(WebhookEvent.NewEntry, WebhookEvent.EntryValid));
+        webhookDTO.setAllEntries(true);
+        webhookDTO.setEnabled(true);
+        return webhookDTO;
+    }
+
+    @Test
+    @DisplayName("HTTP 403: non-admin token")
+    public void res403_nonAdminToken() {
+        // GIVEN (prepare data)
+        Token token = TokenFixtures.noRoleToken();
+        mongoTemplate.getDb().drop();
+        tokenRepository.save(token);
+
+        // AND (prepare request)
+        RequestEntity<WebhookDTO> request = RequestEntity
+                .post(url())
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .body(webhookExample());
+
+        // WHEN
+        ResponseEntity<WebhookDTO> result = client.exchange(request, responseType);
+
+        // THEN
+        assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.FORBIDDEN)));
+        assertThat("No webhook is created", webhookRepository.count(), is(equalTo(0L)));
+    }
+
+    @Test
+    @DisplayName("HTTP 400: missing secret")
+    public void res400_missingSecret() {
+        // GIVEN (prepare data)
+        Token token = TokenFixtures.adminToken();
+        WebhookDTO webhookDTO = webhookExample();
+        webhookDTO.setSecret(null);
+        mongoTemplate.getDb().drop();
+        tokenRepository.save(token);
+
+        // AND (prepare request)
+        RequestEntity<WebhookDTO> request = RequestEntity
+                .post(url())
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .body(webhookDTO);
+
+        // WHEN
+        ResponseEntity<WebhookDTO> result = client.exchange(request, responseType);
+
+        // THEN
+        assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.BAD_REQUEST)));
+        assertThat("No webhook is created", webhookRepository.count(), is(equalTo(0L)));
+    }
+
+    @Test
+    @DisplayName("HTTP 201: create webhook")
+    public void res201_create() {
+        // GIVEN (prepare data)
+        Token token = TokenFixtures.adminToken();
+        mongoTemplate.getDb().drop();
+        tokenRepository.save(token);
+        Webhook direct = new Webhook();
+        direct.setPayloadUrl("http://example.com/direct");
+        direct.setSecret("mySecret");
+        direct.setEnabled(true);
+
+        // AND (cache matchers for a long time)
+        Duration registryRefresh = webhooksConfig.getRegistryRefresh();
+        ReflectionTestUtils.setField(webhooksConfig, "registryRefresh", Duration.ofHours(1));
+        List<WebhookMatcher> matchersBefore;
+        List<WebhookMatcher> matchers;
+        ResponseEntity<WebhookDTO> result;
+        try {
+            webhookService.invalidateMatchers();
+            webhookService.getMatchers();
+            webhookRepository.save(direct);
+            matchersBefore = webhookService.getMatchers();
+
+            // AND (prepare request)
+            RequestEntity<WebhookDTO> request = RequestEntity
+                    .post(url())
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                    .body(webhookExample());
+
+            // WHEN
+            result = client.exchange(request, responseType);
+            matchers = webhookService.getMatchers();
+        } finally {
+            ReflectionTestUtils.setField(webhooksConfig, "registryRefresh", registryRefresh);
+        }
+        Optional<Webhook> webhook = webhookRepository.findByUuid(UUID.fromString(result.getBody().getUuid()));
+
+        // THEN
+        assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.CREATED)));
+        assertThat("Secret is hidden", result.getBody().getSecret().equals("mySecret"), is(equalTo(false)));
+        assertThat("Webhook is stored", webhook.isPresent(), is(equalTo(true)));
+        assertThat("Secret is stored", webhook.get().getSecret(), is(equalTo("mySecret")));
+        assertThat("HMAC signature is used by default", webhook.get().getSignature(), is(equalTo(WebhookSignature.HmacSha256)));
+        assertThat("Matchers are cached", matchersBefore.size(), is(equalTo(0)));
+        assertThat("Matchers are reloaded after change via API", matchers.size(), is(equalTo(2)));
+    }
+
+    @Test
+    @DisplayName("HTTP 409: existing UUID")
+    public void res409_existingUuid() {
+        // GIVEN (prepare data)
+        Token token = TokenFixtures.adminToken();
+        Webhook existing = new Webhook();
+        existing.setPayloadUrl("http://example.com/existing");
+        existing.setSecret("existingSecret");
+        mongoTemplate.getDb().drop();
+        tokenRepository.save(token);
+        webhookRepository.save(existing);
+
+        // AND (prepare request)
+        WebhookDTO webhookDTO = webhookExample();
+        webhookDTO.setUuid(existing.getUuid().toString());
+        RequestEntity<WebhookDTO> request = RequestEntity
+                .post(url())
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .body(webhookDTO);
+
+        // WHEN
+        ResponseEntity<Void> result = client.exchange(request, Void.class);
+        Optional<Webhook> webhook = webhookRepository.findByUuid(existing.getUuid());
+
+        // THEN
+        assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.CONFLICT)));
+        assertThat("No webhook is created", webhookRepository.count(), is(equalTo(1L)));
+        assertThat("Existing webhook is not changed", webhook.get().getPayloadUrl(), is(equalTo(existing.getPayloadUrl())));
+    }
+}
@@ -131,4 +131,56 @@ public class EntriesAll_GET_Test extends WebIntegrationTest {
             assertThat("Entry matches: " + entries.get(i).getClientUrl(), result.getBody().get(i).getClientUrl(), is(equalTo(entries.get(i).getClientUrl())));
         }
     }
+
+    @Test
+    @DisplayName("HTTP 304: not modified")
+    public void res304_notModified() {
+        // GIVEN (prepare data)
+        mongoTemplate.getDb().drop();
+        indexEntryRepository.saveAll(IndexEntryFixtures.entriesFew());
+        RequestEntity<?> firstRequest = RequestEntity
+                .get(url())
+                .accept(MediaType.APPLICATION_JSON)
+                .build();
+        ResponseEntity<List<IndexEntryDTO>> firstResult = client.exchange(firstRequest, responseType);
+        String etag = firstResult.getHeaders().getETag();
+
+        // AND (prepare request)
+        RequestEntity<?> request = RequestEntity
+                .get(url())
+                .accept(MediaType.APPLICATION_JSON)
+                .ifNoneMatch(etag)
+                .build();
+
+        // WHEN
+        ResponseEntity<List<IndexEntryDTO>> result = client.exchange(request, responseType);
+
+        // THEN
+        assertThat("ETag is provided", etag, is(notNullValue()));
+        assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.NOT_MODIFIED)));
+    }
+
+    @Test
+    @DisplayName("HTTP 200: list changed since")
+    public void res200_listSince() {
+        // GIVEN (prepare data)
+        mongoTemplate.getDb().drop();
+        List<IndexEntry> entries = IndexEntryFixtures.entriesN(300);
+        indexEntryRepository.saveAll(entries);
+        String since = entries.get(100).getModificationTime().toString();
+
+        // AND (prepare request)
+        RequestEntity<?> request = RequestEntity
+                .get(URI.create("/entries/all?since=" + since))
+                .accept(MediaType.APPLICATION_JSON)
+                .build();
+
+        // WHEN
+        ResponseEntity<List<IndexEntryDTO>> result = client.exchange(request, responseType);
+
+        // THEN
+        assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.OK)));
+        assertThat("Response body is not null", result.getBody(), is(notNullValue()));
+        assertThat("Only changed entries are in the response", result.getBody().size(), is(equalTo(100)));
+    }
 }
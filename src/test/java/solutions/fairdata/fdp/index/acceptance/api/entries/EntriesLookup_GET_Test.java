@@ -0,0 +1,116 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.acceptance.api.entries;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.util.UriComponentsBuilder;
+import solutions.fairdata.fdp.index.WebIntegrationTest;
+import solutions.fairdata.fdp.index.api.dto.SearchHitDTO;
+import solutions.fairdata.fdp.index.database.repository.IndexEntryRepository;
+import solutions.fairdata.fdp.index.entity.IndexEntry;
+import solutions.fairdata.fdp.index.fixtures.IndexEntryFixtures;
+import solutions.fairdata.fdp.index.service.EntryLookupService;
+import solutions.fairdata.fdp.index.service.IndexEntryService;
+
+import java.net.URI;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.notNullValue;
+
+@DisplayName("GET /entries/lookup")
+public class EntriesLookup_GET_Test extends WebIntegrationTest {
+
+    @Autowired
+    private IndexEntryRepository indexEntryRepository;
+    @Autowired
+    private IndexEntryService indexEntryService;
+    @Autowired
+    private EntryLookupService entryLookupService;
+
+    private final ParameterizedTypeReference<List<SearchHitDTO>> responseType = new ParameterizedTypeReference<>() {};
+
+    private URI url(String q) {
+        return UriComponentsBuilder.fromUriString("/entries/lookup")
+                .queryParam("q", q)
+                .build().toUri();
+    }
+
+    private ResponseEntity<List<SearchHitDTO>> lookup(String q) {
+        RequestEntity<?> request = RequestEntity
+                .get(url(q))
+                .accept(MediaType.APPLICATION_JSON)
+                .build();
+        return client.exchange(request, responseType);
+    }
+
+    @Test
+    @DisplayName("HTTP 200: lookup by prefixes")
+    public void res200_lookup() {
+        // GIVEN (prepare data)
+        mongoTemplate.getDb().drop();
+        IndexEntry first = IndexEntryFixtures.activeEntry("http://fdp.genomics.org");
+        first.getCurrentMetadata().setTitle("Genomics FDP");
+        IndexEntry second = IndexEntryFixtures.activeEntry("http://fdp.example.com/chemistry");
+        second.getCurrentMetadata().setTitle("Chemistry FDP");
+        indexEntryRepository.saveAll(List.of(first, second));
+        entryLookupService.rebuild();
+
+        // WHEN
+        ResponseEntity<List<SearchHitDTO>> result = lookup("gen fd");
+
+        // THEN
+        assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.OK)));
+        assertThat("Response body is not null", result.getBody(), is(notNullValue()));
+        assertThat("Only matching entry is found", result.getBody().size(), is(equalTo(1)));
+        assertThat("Correct entry is found", result.getBody().get(0).getClientUrl(), is(equalTo(first.getClientUrl())));
+    }
+
+    @Test
+    @DisplayName("HTTP 200: lookup updated incrementally")
+    public void res200_lookupUpdated() {
+        // GIVEN (prepare data)
+        mongoTemplate.getDb().drop();
+        entryLookupService.rebuild();
+        IndexEntry entry = IndexEntryFixtures.activeEntry("http://fdp.example.com");
+        entry.getCurrentMetadata().setTitle("Astronomy");
+        indexEntryService.saveEntry(entry);
+
+        // WHEN
+        ResponseEntity<List<SearchHitDTO>> result = lookup("astro");
+
+        // THEN
+        assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.OK)));
+        assertThat("Response body is not null", result.getBody(), is(notNullValue()));
+        assertThat("Saved entry is found", result.getBody().size(), is(equalTo(1)));
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.acceptance.api.entries;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import solutions.fairdata.fdp.index.WebIntegrationTest;
+import solutions.fairdata.fdp.index.api.dto.IndexEntryTombstoneDTO;
+import solutions.fairdata.fdp.index.database.repository.IndexEntryRepository;
+import solutions.fairdata.fdp.index.entity.IndexEntry;
+import solutions.fairdata.fdp.index.fixtures.IndexEntryFixtures;
+import solutions.fairdata.fdp.index.service.IndexEntryService;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.notNullValue;
+
+@DisplayName("GET /entries/removed")
+public class EntriesRemoved_GET_Test extends WebIntegrationTest {
+
+    @Autowired
+    private IndexEntryRepository indexEntryRepository;
+    @Autowired
+    private IndexEntryService indexEntryService;
+
+    private final ParameterizedTypeReference<List<IndexEntryTombstoneDTO>> responseType = new ParameterizedTypeReference<>() {};
+
+    @Test
+    @DisplayName("HTTP 200: list removed since")
+    public void res200_listRemovedSince() throws InterruptedException {
+        // GIVEN (prepare data)
+        mongoTemplate.getDb().drop();
+        List<IndexEntry> entries = IndexEntryFixtures.entriesFew();
+        indexEntryRepository.saveAll(entries);
+        indexEntryService.removeEntry(entries.get(0).getClientUrl());
+        // timestamps are stored with millisecond precision
+        Thread.sleep(10);
+        Instant since = Instant.now();
+        Thread.sleep(10);
+        indexEntryService.removeEntry(entries.get(1).getClientUrl());
+
+        // AND (prepare request)
+        RequestEntity<?> request = RequestEntity
+                .get(URI.create("/entries/removed?since=" + since))
+                .accept(MediaType.APPLICATION_JSON)
+                .build();
+
+        // WHEN
+        ResponseEntity<List<IndexEntryTombstoneDTO>> result = client.exchange(request, responseType);
+
+        // THEN
+        assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.OK)));
+        assertThat("Response body is not null", result.getBody(), is(notNullValue()));
+        assertThat("Only entry removed after since is listed", result.getBody().size(), is(equalTo(1)));
+        assertThat("Removed entry matches", result.getBody().get(0).getClientUrl(), is(equalTo(entries.get(1).getClientUrl())));
+        assertThat("Entry is no longer listed", indexEntryRepository.findByClientUrl(entries.get(1).getClientUrl()).isPresent(), is(equalTo(false)));
+    }
+}
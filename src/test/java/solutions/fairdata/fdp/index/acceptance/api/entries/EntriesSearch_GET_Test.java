@@ -0,0 +1,170 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.acceptance.api.entries;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.util.UriComponentsBuilder;
+import solutions.fairdata.fdp.index.WebIntegrationTest;
+import solutions.fairdata.fdp.index.api.dto.SearchResultDTO;
+import solutions.fairdata.fdp.index.database.changelogs.DatabaseChangeLog;
+import solutions.fairdata.fdp.index.database.repository.IndexEntryRepository;
+import solutions.fairdata.fdp.index.entity.IndexEntry;
+import solutions.fairdata.fdp.index.fixtures.IndexEntryFixtures;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.notNullValue;
+
+@DisplayName("GET /entries/search")
+public class EntriesSearch_GET_Test extends WebIntegrationTest {
+
+    @Autowired
+    private IndexEntryRepository indexEntryRepository;
+
+    private final ParameterizedTypeReference<SearchResultDTO> responseType = new ParameterizedTypeReference<>() {};
+
+    private IndexEntry entry(String clientUrl, String title, String publisherName, String country) {
+        IndexEntry entry = IndexEntryFixtures.activeEntry(clientUrl);
+        entry.getCurrentMetadata().setTitle(title);
+        entry.getCurrentMetadata().setPublisherName(publisherName);
+        entry.getCurrentMetadata().setCountry(country);
+        return entry;
+    }
+
+    private void prepareEntries() {
+        mongoTemplate.getDb().drop();
+        new DatabaseChangeLog().addMetadataTextIndex(mongoTemplate.getDb());
+        new DatabaseChangeLog().compactRepositoryMetadata(mongoTemplate.getDb());
+        indexEntryRepository.saveAll(List.of(
+                entry("http://fdp1.example.com", "Genomics data", "Leiden University", "http://country/NL"),
+                entry("http://fdp2.example.com", "Rare diseases genomics", "Leiden University", "http://country/NL"),
+                entry("http://fdp3.example.com", "Rare diseases registry", "Charles University", "http://country/CZ"),
+                entry("http://fdp4.example.com", "Chemistry", "Charles University", "http://country/CZ")
+        ));
+    }
+
+    private ResponseEntity<SearchResultDTO> search(String q, String country) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString("/entries/search").queryParam("q", q);
+        if (country != null) {
+            builder.queryParam("country", country);
+        }
+        return search(builder);
+    }
+
+    private ResponseEntity<SearchResultDTO> searchPage(int page, int size) {
+        return search(UriComponentsBuilder.fromUriString("/entries/search")
+                .queryParam("page", page)
+                .queryParam("size", size));
+    }
+
+    private ResponseEntity<SearchResultDTO> search(UriComponentsBuilder builder) {
+        RequestEntity<?> request = RequestEntity
+                .get(builder.build().toUri())
+                .accept(MediaType.APPLICATION_JSON)
+                .build();
+        return client.exchange(request, responseType);
+    }
+
+    @Test
+    @DisplayName("HTTP 200: full-text search with facets")
+    public void res200_search() {
+        // GIVEN (prepare data)
+        prepareEntries();
+
+        // WHEN
+        ResponseEntity<SearchResultDTO> result = search("genomics", null);
+
+        // THEN
+        assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.OK)));
+        assertThat("Response body is not null", result.getBody(), is(notNullValue()));
+        assertThat("Matching entries are found", result.getBody().getTotal(), is(equalTo(2L)));
+        assertThat("Country facet is computed", result.getBody().getCountries().size(), is(equalTo(1)));
+        assertThat("Country facet count is correct", result.getBody().getCountries().get(0).getCount(), is(equalTo(2L)));
+    }
+
+    @Test
+    @DisplayName("HTTP 200: search filtered by country facet")
+    public void res200_searchCountry() {
+        // GIVEN (prepare data)
+        prepareEntries();
+
+        // WHEN
+        ResponseEntity<SearchResultDTO> result = search("rare", "http://country/CZ");
+
+        // THEN
+        assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.OK)));
+        assertThat("Response body is not null", result.getBody(), is(notNullValue()));
+        assertThat("Only entries from selected country are found", result.getBody().getTotal(), is(equalTo(1L)));
+        assertThat("Correct entry is found", result.getBody().getHits().get(0).getClientUrl(), is(equalTo("http://fdp3.example.com")));
+        assertThat("Country facet ignores own selection", result.getBody().getCountries().size(), is(equalTo(2)));
+    }
+
+    @Test
+    @DisplayName("HTTP 200: pages are numbered from zero")
+    public void res200_searchPages() {
+        // GIVEN (prepare data)
+        prepareEntries();
+
+        // WHEN
+        ResponseEntity<SearchResultDTO> defaultPage = search(UriComponentsBuilder.fromUriString("/entries/search").queryParam("size", 3));
+        ResponseEntity<SearchResultDTO> firstPage = searchPage(0, 3);
+        ResponseEntity<SearchResultDTO> secondPage = searchPage(1, 3);
+
+        // THEN
+        assertThat("Correct response code is received", secondPage.getStatusCode(), is(equalTo(HttpStatus.OK)));
+        assertThat("Default page is the first one", defaultPage.getBody().getPage(), is(equalTo(0)));
+        assertThat("First page is full", firstPage.getBody().getHits().size(), is(equalTo(3)));
+        assertThat("Second page has the rest", secondPage.getBody().getHits().size(), is(equalTo(1)));
+        assertThat("Page number is returned", secondPage.getBody().getPage(), is(equalTo(1)));
+        assertThat("Total pages are computed", secondPage.getBody().getTotalPages(), is(equalTo(2L)));
+        assertThat("Pages do not overlap", firstPage.getBody().getHits().stream()
+                .noneMatch(hit -> hit.getClientUrl().equals(secondPage.getBody().getHits().get(0).getClientUrl())), is(equalTo(true)));
+    }
+
+    @Test
+    @DisplayName("HTTP 200: page beyond total is empty")
+    public void res200_searchFarPage() {
+        // GIVEN (prepare data)
+        prepareEntries();
+
+        // WHEN (page * size does not fit into int)
+        ResponseEntity<SearchResultDTO> result = searchPage(Integer.MAX_VALUE, 100);
+
+        // THEN
+        assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.OK)));
+        assertThat("Response body is not null", result.getBody(), is(notNullValue()));
+        assertThat("No entries are returned", result.getBody().getHits().size(), is(equalTo(0)));
+        assertThat("Total is still computed", result.getBody().getTotal(), is(equalTo(4L)));
+        assertThat("Page number is returned", result.getBody().getPage(), is(equalTo(Integer.MAX_VALUE)));
+    }
+}
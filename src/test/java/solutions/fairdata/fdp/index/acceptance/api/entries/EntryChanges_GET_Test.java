@@ -0,0 +1,137 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.acceptance.api.entries;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import solutions.fairdata.fdp.index.WebIntegrationTest;
+import solutions.fairdata.fdp.index.entity.IndexEntry;
+import solutions.fairdata.fdp.index.fixtures.IndexEntryFixtures;
+import solutions.fairdata.fdp.index.service.EntryChangeService;
+import solutions.fairdata.fdp.index.service.IndexEntryService;
+import solutions.fairdata.fdp.index.utils.AwaitUtils;
+
+import java.io.UnsupportedEncodingException;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.StringContains.containsString;
+
+@DisplayName("GET /entries/changes")
+public class EntryChanges_GET_Test extends WebIntegrationTest {
+
+    @Autowired
+    private IndexEntryService indexEntryService;
+
+    @Autowired
+    private EntryChangeService entryChangeService;
+
+    @Test
+    @DisplayName("HTTP 200: resume with token")
+    public void res200_resume() throws Exception {
+        // GIVEN (prepare data)
+        mongoTemplate.getDb().drop();
+        String token = entryChangeService.getLatestToken();
+        IndexEntry entry = indexEntryService.saveEntry(IndexEntryFixtures.entryExample());
+
+        // AND (prepare request)
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/entries/changes")
+                .header("Last-Event-ID", token)
+                .accept(MediaType.TEXT_EVENT_STREAM);
+
+        // WHEN
+        MvcResult result = mvc.perform(request).andReturn();
+
+        // THEN
+        String content = awaitContent(result, entry.getClientUrl());
+        assertThat("Request is streamed", result.getRequest().isAsyncStarted(), is(equalTo(true)));
+        assertThat("Missed change is replayed", content, containsString("event:entry"));
+        assertThat("Change of entry is sent", content, containsString(entry.getClientUrl()));
+    }
+
+    @Test
+    @DisplayName("HTTP 200: replayed changes precede live changes")
+    public void res200_resumeOrdered() throws Exception {
+        // GIVEN (prepare data)
+        mongoTemplate.getDb().drop();
+        String token = entryChangeService.getLatestToken();
+        List<IndexEntry> entries = IndexEntryFixtures.entriesFew();
+        indexEntryService.saveEntry(entries.get(0));
+        indexEntryService.saveEntry(entries.get(1));
+
+        // AND (prepare request)
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/entries/changes")
+                .header("Last-Event-ID", token)
+                .accept(MediaType.TEXT_EVENT_STREAM);
+
+        // WHEN
+        MvcResult result = mvc.perform(request).andReturn();
+        indexEntryService.saveEntry(entries.get(2));
+
+        // THEN
+        String content = awaitContent(result, entries.get(2).getClientUrl());
+        int first = content.indexOf(entries.get(0).getClientUrl());
+        int second = content.indexOf(entries.get(1).getClientUrl());
+        int live = content.indexOf(entries.get(2).getClientUrl());
+        assertThat("Missed changes are replayed", first >= 0 && second >= 0, is(equalTo(true)));
+        assertThat("Missed changes are replayed in order", first < second, is(equalTo(true)));
+        assertThat("Live change follows replayed ones", second < live, is(equalTo(true)));
+    }
+
+    @Test
+    @DisplayName("HTTP 200: reset for unknown token")
+    public void res200_reset() throws Exception {
+        // GIVEN (prepare request)
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/entries/changes")
+                .param("since", "unknown-1")
+                .accept(MediaType.TEXT_EVENT_STREAM);
+
+        // WHEN
+        MvcResult result = mvc.perform(request).andReturn();
+
+        // THEN
+        String content = awaitContent(result, "event:reset");
+        assertThat("Reset is requested", content, containsString("event:reset"));
+    }
+
+    private String awaitContent(MvcResult result, String expected) throws Exception {
+        AwaitUtils.await(() -> {
+            try {
+                return result.getResponse().getContentAsString().contains(expected);
+            } catch (UnsupportedEncodingException e) {
+                return false;
+            }
+        });
+        return result.getResponse().getContentAsString();
+    }
+}
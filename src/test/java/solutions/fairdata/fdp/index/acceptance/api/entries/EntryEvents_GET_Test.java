@@ -0,0 +1,156 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.acceptance.api.entries;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.util.UriComponentsBuilder;
+import solutions.fairdata.fdp.index.WebIntegrationTest;
+import solutions.fairdata.fdp.index.api.dto.EventSummaryDTO;
+import solutions.fairdata.fdp.index.api.dto.EventTimelineDTO;
+import solutions.fairdata.fdp.index.database.repository.EventRepository;
+import solutions.fairdata.fdp.index.database.repository.IndexEntryRepository;
+import solutions.fairdata.fdp.index.entity.IndexEntry;
+import solutions.fairdata.fdp.index.entity.events.Event;
+import solutions.fairdata.fdp.index.entity.events.MetadataRetrieval;
+import solutions.fairdata.fdp.index.fixtures.IndexEntryFixtures;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
+
+@DisplayName("GET /entries/events")
+public class EntryEvents_GET_Test extends WebIntegrationTest {
+
+    @Autowired
+    private IndexEntryRepository indexEntryRepository;
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final ParameterizedTypeReference<EventTimelineDTO> responseType = new ParameterizedTypeReference<>() {};
+
+    private URI url(String clientUrl, String before) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString("/entries/events")
+                .queryParam("clientUrl", clientUrl)
+                .queryParam("size", 10);
+        if (before != null) {
+            builder.queryParam("before", before);
+        }
+        return builder.build().toUri();
+    }
+
+    @Test
+    @DisplayName("HTTP 200: unknown entry")
+    public void res200_unknownEntry() {
+        // GIVEN (prepare data)
+        mongoTemplate.getDb().drop();
+
+        // AND (prepare request)
+        RequestEntity<?> request = RequestEntity
+                .get(url("http://example.com", null))
+                .accept(MediaType.APPLICATION_JSON)
+                .build();
+
+        // WHEN
+        ResponseEntity<EventTimelineDTO> result = client.exchange(request, responseType);
+
+        // THEN
+        assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.OK)));
+        assertThat("Response body is not null", result.getBody(), is(notNullValue()));
+        assertThat("There are no events in the response", result.getBody().getEvents().size(), is(equalTo(0)));
+        assertThat("There is no next page", result.getBody().getNextBefore(), is(nullValue()));
+    }
+
+    @Test
+    @DisplayName("HTTP 200: paginated timeline")
+    public void res200_paginated() {
+        // GIVEN (prepare data)
+        mongoTemplate.getDb().drop();
+        IndexEntry entry = indexEntryRepository.save(IndexEntryFixtures.entryExample());
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            events.add(new Event(1, null, entry, new MetadataRetrieval()));
+        }
+        eventRepository.saveAll(events);
+
+        // WHEN
+        List<EventSummaryDTO> received = new ArrayList<>();
+        String before = null;
+        int pages = 0;
+        do {
+            RequestEntity<?> request = RequestEntity
+                    .get(url(entry.getClientUrl(), before))
+                    .accept(MediaType.APPLICATION_JSON)
+                    .build();
+            ResponseEntity<EventTimelineDTO> result = client.exchange(request, responseType);
+            assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.OK)));
+            assertThat("Response body is not null", result.getBody(), is(notNullValue()));
+            received.addAll(result.getBody().getEvents());
+            before = result.getBody().getNextBefore();
+            pages++;
+        } while (before != null);
+
+        // THEN
+        assertThat("Correct number of pages is received", pages, is(equalTo(3)));
+        assertThat("All events are received", received.size(), is(equalTo(events.size())));
+        for (int i = 0; i < events.size(); i++) {
+            Event expected = events.get(events.size() - 1 - i);
+            assertThat("Events are ordered from the latest", received.get(i).getUuid(), is(equalTo(expected.getUuid().toString())));
+        }
+    }
+
+    @Test
+    @DisplayName("HTTP 400: invalid cursor")
+    public void res400_invalidCursor() {
+        // GIVEN (prepare data)
+        mongoTemplate.getDb().drop();
+        IndexEntry entry = indexEntryRepository.save(IndexEntryFixtures.entryExample());
+
+        // AND (prepare request)
+        RequestEntity<?> request = RequestEntity
+                .get(url(entry.getClientUrl(), "not-a-cursor"))
+                .accept(MediaType.APPLICATION_JSON)
+                .build();
+
+        // WHEN
+        ResponseEntity<EventTimelineDTO> result = client.exchange(request, responseType);
+
+        // THEN
+        assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.BAD_REQUEST)));
+    }
+}
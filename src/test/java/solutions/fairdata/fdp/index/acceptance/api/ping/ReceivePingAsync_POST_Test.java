@@ -0,0 +1,136 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.acceptance.api.ping;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import solutions.fairdata.fdp.index.WebIntegrationTest;
+import solutions.fairdata.fdp.index.api.dto.PingDTO;
+import solutions.fairdata.fdp.index.database.repository.EventRepository;
+import solutions.fairdata.fdp.index.database.repository.IndexEntryRepository;
+import solutions.fairdata.fdp.index.entity.config.EventsConfig;
+import solutions.fairdata.fdp.index.entity.events.EventType;
+import solutions.fairdata.fdp.index.service.PingIngestService;
+import solutions.fairdata.fdp.index.utils.AwaitUtils;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+@DisplayName("POST /ping (asynchronous ingest)")
+public class ReceivePingAsync_POST_Test extends WebIntegrationTest {
+
+    @Autowired
+    private IndexEntryRepository indexEntryRepository;
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private EventsConfig eventsConfig;
+    @Autowired
+    private PingIngestService pingIngestService;
+
+    private final ParameterizedTypeReference<Void> responseType = new ParameterizedTypeReference<>() {};
+
+    private URI url() {
+        return URI.create("/");
+    }
+
+    private PingDTO reqDTO(String clientUrl) {
+        PingDTO dto = new PingDTO();
+        dto.setClientUrl(clientUrl);
+        return dto;
+    }
+
+    @BeforeEach
+    public void enableAsyncIngest() {
+        ReflectionTestUtils.setField(eventsConfig, "pingAsyncIngest", true);
+        pingIngestService.startConsumer();
+    }
+
+    @AfterEach
+    public void disableAsyncIngest() throws InterruptedException {
+        pingIngestService.stopConsumer();
+        ReflectionTestUtils.setField(eventsConfig, "pingAsyncIngest", false);
+    }
+
+    @Test
+    @DisplayName("HTTP 204: accepted pings are stored")
+    public void res204_acceptedPingsStored() {
+        // GIVEN (prepare data)
+        mongoTemplate.getDb().drop();
+        List<String> clientUrls = List.of("http://async1.example.com", "http://async2.example.com", "http://async3.example.com");
+
+        // WHEN
+        List<ResponseEntity<Void>> results = new ArrayList<>();
+        for (String clientUrl : clientUrls) {
+            RequestEntity<PingDTO> request = RequestEntity
+                    .post(url())
+                    .accept(MediaType.APPLICATION_JSON)
+                    .body(reqDTO(clientUrl));
+            results.add(client.exchange(request, responseType));
+        }
+        boolean stored = AwaitUtils.await(() -> eventRepository.getAllByType(EventType.IncomingPing).size() == clientUrls.size());
+
+        // THEN
+        for (ResponseEntity<Void> result : results) {
+            assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.NO_CONTENT)));
+        }
+        assertThat("All pings are stored as events", stored, is(equalTo(true)));
+        for (String clientUrl : clientUrls) {
+            assertThat("Entry is stored", indexEntryRepository.findByClientUrl(clientUrl).isPresent(), is(equalTo(true)));
+        }
+    }
+
+    @Test
+    @DisplayName("HTTP 400: invalid ping is rejected before queueing")
+    public void res400_invalidPing() {
+        // GIVEN (prepare data)
+        mongoTemplate.getDb().drop();
+
+        // AND (prepare request)
+        RequestEntity<PingDTO> request = RequestEntity
+                .post(url())
+                .accept(MediaType.APPLICATION_JSON)
+                .body(reqDTO("testing"));
+
+        // WHEN
+        ResponseEntity<Void> result = client.exchange(request, responseType);
+
+        // THEN
+        assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.BAD_REQUEST)));
+        assertThat("No event is stored", eventRepository.count(), is(equalTo(0L)));
+    }
+}
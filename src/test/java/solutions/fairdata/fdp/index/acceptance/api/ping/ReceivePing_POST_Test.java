@@ -33,12 +33,16 @@ import org.springframework.http.RequestEntity;
 import org.springframework.http.ResponseEntity;
 import solutions.fairdata.fdp.index.WebIntegrationTest;
 import solutions.fairdata.fdp.index.api.dto.PingDTO;
+import solutions.fairdata.fdp.index.database.repository.EventRepository;
 import solutions.fairdata.fdp.index.database.repository.IndexEntryRepository;
 import solutions.fairdata.fdp.index.entity.IndexEntry;
+import solutions.fairdata.fdp.index.entity.events.Event;
+import solutions.fairdata.fdp.index.entity.events.EventType;
 import solutions.fairdata.fdp.index.fixtures.IndexEntryFixtures;
 
 import java.net.URI;
 import java.util.HashMap;
+import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
@@ -50,6 +54,8 @@ public class ReceivePing_POST_Test extends WebIntegrationTest {
     @Autowired
     private IndexEntryRepository indexEntryRepository;
     @Autowired
+    private EventRepository eventRepository;
+    @Autowired
     private MongoTemplate mongoTemplate;
 
     private final ParameterizedTypeReference<Void> responseType = new ParameterizedTypeReference<>() {};
@@ -85,6 +91,9 @@ public class ReceivePing_POST_Test extends WebIntegrationTest {
         // THEN
         assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.NO_CONTENT)));
         assertThat("Entry exists after the ping", indexEntryRepository.findByClientUrl(clientUrl).isPresent(), is(Boolean.TRUE));
+        List<Event> events = eventRepository.getAllByType(EventType.IncomingPing);
+        assertThat("One IncomingPing event is created", events.size(), is(equalTo(1)));
+        assertThat("Ping is recorded as new entry", events.get(0).getIncomingPing().getNewEntry(), is(Boolean.TRUE));
     }
 
     @Test
@@ -110,6 +119,10 @@ public class ReceivePing_POST_Test extends WebIntegrationTest {
         // THEN
         assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.NO_CONTENT)));
         assertThat("Entry exists after the ping", indexEntryRepository.findByClientUrl(clientUrl).isPresent(), is(Boolean.TRUE));
+        assertThat("Registration time is kept", indexEntryRepository.findByClientUrl(clientUrl).get().getRegistrationTime().toEpochMilli(), is(equalTo(indexEntry.getRegistrationTime().toEpochMilli())));
+        List<Event> events = eventRepository.getAllByType(EventType.IncomingPing);
+        assertThat("One IncomingPing event is created", events.size(), is(equalTo(1)));
+        assertThat("Ping is not recorded as new entry", events.get(0).getIncomingPing().getNewEntry(), is(Boolean.FALSE));
     }
 
     @Test
@@ -169,4 +182,74 @@ public class ReceivePing_POST_Test extends WebIntegrationTest {
         // THEN
         assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.BAD_REQUEST)));
     }
+
+    @Test
+    @DisplayName("HTTP 400: invalid ping is not stored")
+    public void res400_invalidNotStored() {
+        // GIVEN (prepare data)
+        mongoTemplate.getDb().drop();
+        PingDTO reqDto = reqDTO("testing");
+
+        // AND (prepare request)
+        RequestEntity<PingDTO> request = RequestEntity
+                .post(url())
+                .accept(MediaType.APPLICATION_JSON)
+                .body(reqDto);
+
+        // WHEN
+        ResponseEntity<Void> result = client.exchange(request, responseType);
+
+        // THEN
+        assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.BAD_REQUEST)));
+        assertThat("No event is stored", eventRepository.count(), is(equalTo(0L)));
+    }
+
+    @Test
+    @DisplayName("HTTP 413: too large body")
+    public void res413_tooLargeBody() {
+        // GIVEN (prepare data)
+        mongoTemplate.getDb().drop();
+        PingDTO reqDto = reqDTO("http://example.com/" + "a".repeat(10000));
+
+        // AND (prepare request)
+        RequestEntity<PingDTO> request = RequestEntity
+                .post(url())
+                .accept(MediaType.APPLICATION_JSON)
+                .body(reqDto);
+
+        // WHEN
+        ResponseEntity<Void> result = client.exchange(request, responseType);
+
+        // THEN
+        assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.PAYLOAD_TOO_LARGE)));
+        assertThat("No event is stored", eventRepository.count(), is(equalTo(0L)));
+    }
+
+    @Test
+    @DisplayName("HTTP 429: rate limit per clientUrl")
+    public void res429_clientUrlRateLimit() {
+        // GIVEN (prepare data)
+        mongoTemplate.getDb().drop();
+        String clientUrl = "http://rate-limited.example.com";
+
+        // AND (prepare requests)
+        RequestEntity<PingDTO> request = RequestEntity
+                .post(url())
+                .accept(MediaType.APPLICATION_JSON)
+                .body(reqDTO(clientUrl));
+        RequestEntity<PingDTO> requestVariant = RequestEntity
+                .post(url())
+                .accept(MediaType.APPLICATION_JSON)
+                .body(reqDTO("HTTP://Rate-Limited.example.com:80/"));
+        for (int i = 0; i < 5; i++) {
+            client.exchange(request, responseType);
+        }
+
+        // WHEN
+        ResponseEntity<Void> result = client.exchange(requestVariant, responseType);
+
+        // THEN
+        assertThat("Correct response code is received", result.getStatusCode(), is(equalTo(HttpStatus.TOO_MANY_REQUESTS)));
+        assertThat("Only allowed pings are stored", eventRepository.getAllByType(EventType.IncomingPing).size(), is(equalTo(5)));
+    }
 }
@@ -25,15 +25,20 @@ package solutions.fairdata.fdp.index.acceptance.web.home;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.RequestBuilder;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.web.util.UriComponentsBuilder;
 import solutions.fairdata.fdp.index.WebIntegrationTest;
+import solutions.fairdata.fdp.index.database.repository.EventRepository;
 import solutions.fairdata.fdp.index.database.repository.IndexEntryRepository;
 import solutions.fairdata.fdp.index.entity.IndexEntry;
 import solutions.fairdata.fdp.index.entity.config.EventsConfig;
+import solutions.fairdata.fdp.index.entity.events.Event;
+import solutions.fairdata.fdp.index.entity.events.MetadataRetrieval;
 import solutions.fairdata.fdp.index.fixtures.IndexEntryFixtures;
 
 import java.net.URI;
@@ -48,6 +53,9 @@ public class Entry_GET_Test extends WebIntegrationTest {
     @Autowired
     private IndexEntryRepository indexEntryRepository;
 
+    @Autowired
+    private EventRepository eventRepository;
+
     @Autowired
     private EventsConfig eventsConfig;
 
@@ -110,9 +118,9 @@ public class Entry_GET_Test extends WebIntegrationTest {
                 .andExpect(xpath("//div[@id='entryFound']").exists())
                 .andExpect(xpath("//*[@id='repository-uri']/a").string(indexEntry.getCurrentMetadata().getRepositoryUri()))
                 .andExpect(xpath("//*[@id='repository-uri']/a/@href").string(indexEntry.getCurrentMetadata().getRepositoryUri()))
-                .andExpect(xpath("//*[@id='metadata-title']").string(indexEntry.getCurrentMetadata().getMetadata().get("title")))
-                .andExpect(xpath("//*[@id='metadata-version']").string(indexEntry.getCurrentMetadata().getMetadata().get("version")))
-                .andExpect(xpath("//*[@id='metadata-description']").string(indexEntry.getCurrentMetadata().getMetadata().get("description")));
+                .andExpect(xpath("//*[@id='metadata-title']").string(indexEntry.getCurrentMetadata().getTitle()))
+                .andExpect(xpath("//*[@id='metadata-version']").string(indexEntry.getCurrentMetadata().getVersion()))
+                .andExpect(xpath("//*[@id='metadata-description']").string(indexEntry.getCurrentMetadata().getDescription()));
     }
 
     @Test
@@ -146,9 +154,9 @@ public class Entry_GET_Test extends WebIntegrationTest {
                 .andExpect(xpath("//div[@id='entryFound']").exists())
                 .andExpect(xpath("//*[@id='repository-uri']/a").string(indexEntry.getCurrentMetadata().getRepositoryUri()))
                 .andExpect(xpath("//*[@id='repository-uri']/a/@href").string(indexEntry.getCurrentMetadata().getRepositoryUri()))
-                .andExpect(xpath("//*[@id='metadata-title']").string(indexEntry.getCurrentMetadata().getMetadata().get("title")))
-                .andExpect(xpath("//*[@id='metadata-version']").string(indexEntry.getCurrentMetadata().getMetadata().get("version")))
-                .andExpect(xpath("//*[@id='metadata-description']").string(indexEntry.getCurrentMetadata().getMetadata().get("description")));
+                .andExpect(xpath("//*[@id='metadata-title']").string(indexEntry.getCurrentMetadata().getTitle()))
+                .andExpect(xpath("//*[@id='metadata-version']").string(indexEntry.getCurrentMetadata().getVersion()))
+                .andExpect(xpath("//*[@id='metadata-description']").string(indexEntry.getCurrentMetadata().getDescription()));
     }
 
     @Test
@@ -179,4 +187,42 @@ public class Entry_GET_Test extends WebIntegrationTest {
                 .andExpect(xpath("//*[@id='repository-uri']").doesNotExist())
                 .andExpect(xpath("//*[@id='metadata-title']").doesNotExist());
     }
+
+    @Test
+    @DisplayName("HTTP 304: not modified until an event of the entry is added or finished")
+    public void res304_entryEvents() throws Exception {
+        // GIVEN (prepare data)
+        mongoTemplate.getDb().drop();
+        IndexEntry indexEntry = IndexEntryFixtures.activeEntry("http://example.com");
+        indexEntryRepository.save(indexEntry);
+        String etag = mvc.perform(MockMvcRequestBuilders.get(url(indexEntry.getClientUrl())).accept(MediaType.TEXT_HTML))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // WHEN (nothing changed)
+        ResultActions unchanged = mvc.perform(MockMvcRequestBuilders.get(url(indexEntry.getClientUrl()))
+                .accept(MediaType.TEXT_HTML)
+                .header(HttpHeaders.IF_NONE_MATCH, etag));
+
+        // THEN
+        unchanged.andExpect(status().isNotModified());
+
+        // WHEN (event of the entry is added)
+        Event event = new Event(1, null, indexEntry, new MetadataRetrieval());
+        eventRepository.save(event);
+        MvcResult added = mvc.perform(MockMvcRequestBuilders.get(url(indexEntry.getClientUrl()))
+                .accept(MediaType.TEXT_HTML)
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // AND (event is finished)
+        event.finish();
+        eventRepository.save(event);
+        ResultActions finished = mvc.perform(MockMvcRequestBuilders.get(url(indexEntry.getClientUrl()))
+                .accept(MediaType.TEXT_HTML)
+                .header(HttpHeaders.IF_NONE_MATCH, added.getResponse().getHeader(HttpHeaders.ETAG)));
+
+        // THEN
+        finished.andExpect(status().isOk());
+    }
 }
@@ -0,0 +1,283 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.database.changelogs;
+
+import com.mongodb.DBRef;
+import com.mongodb.MongoClientSettings;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import solutions.fairdata.fdp.index.WebIntegrationTest;
+import solutions.fairdata.fdp.index.entity.RepositoryMetadata;
+import solutions.fairdata.fdp.index.utils.MetadataRetrievalUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+@DisplayName("DatabaseChangeLog")
+public class DatabaseChangeLogTest extends WebIntegrationTest {
+
+    private static final String REPOSITORY_URI = "http://example.com/fdp";
+
+    private final DatabaseChangeLog changeLog = new DatabaseChangeLog();
+
+    @BeforeEach
+    public void setUp() {
+        mongoTemplate.getDb().drop();
+    }
+
+    private Document legacyMetadata() {
+        return new Document()
+                .append("metadataVersion", 1)
+                .append("repositoryUri", REPOSITORY_URI)
+                .append("metadata", new Document()
+                        .append(RepositoryMetadata.KEY_TITLE, "Title")
+                        .append(RepositoryMetadata.KEY_DESCRIPTION, "Description")
+                        .append(RepositoryMetadata.KEY_VERSION, "1.0")
+                        .append(RepositoryMetadata.KEY_PUBLISHER, "http://example.com/publisher")
+                        .append(RepositoryMetadata.KEY_PUBLISHER_NAME, "Example Publisher")
+                        .append(RepositoryMetadata.KEY_COUNTRY, "NL")
+                        .append("language", "en"));
+    }
+
+    private void assertCompacted(String message, Document metadata) {
+        assertThat(message + ": version", metadata.getInteger("v"), is(equalTo(1)));
+        assertThat(message + ": repository URI", metadata.getString("uri"), is(equalTo(REPOSITORY_URI)));
+        assertThat(message + ": title", metadata.getString(RepositoryMetadata.FIELD_TITLE), is(equalTo("Title")));
+        assertThat(message + ": description", metadata.getString(RepositoryMetadata.FIELD_DESCRIPTION), is(equalTo("Description")));
+        assertThat(message + ": metadata version", metadata.getString(RepositoryMetadata.FIELD_VERSION), is(equalTo("1.0")));
+        assertThat(message + ": publisher", metadata.getString(RepositoryMetadata.FIELD_PUBLISHER), is(equalTo("http://example.com/publisher")));
+        assertThat(message + ": publisher name", metadata.getString(RepositoryMetadata.FIELD_PUBLISHER_NAME), is(equalTo("Example Publisher")));
+        assertThat(message + ": country", metadata.getString(RepositoryMetadata.FIELD_COUNTRY), is(equalTo("NL")));
+        assertThat(message + ": extra", metadata.get(RepositoryMetadata.FIELD_EXTRA, Document.class), is(equalTo(new Document("language", "en"))));
+        assertThat(message + ": legacy fields removed", metadata.containsKey("metadata") || metadata.containsKey("repositoryUri"), is(equalTo(false)));
+    }
+
+    private Document compactMetadata(String title) {
+        return new Document()
+                .append("v", 1)
+                .append("uri", REPOSITORY_URI)
+                .append(RepositoryMetadata.FIELD_TITLE, title)
+                .append(RepositoryMetadata.FIELD_PUBLISHER_NAME, "Example Publisher")
+                .append(RepositoryMetadata.FIELD_EXTRA, new Document("language", "en"));
+    }
+
+    private RepositoryMetadata repositoryMetadata(String title) {
+        RepositoryMetadata metadata = new RepositoryMetadata();
+        metadata.setRepositoryUri(REPOSITORY_URI);
+        metadata.setTitle(title);
+        metadata.setPublisherName("Example Publisher");
+        metadata.getExtra().put("language", "en");
+        return metadata;
+    }
+
+    private Document retrievalEvent(ObjectId entryId, Document metadata) {
+        return new Document()
+                .append("_id", new ObjectId())
+                .append("type", "MetadataRetrieval")
+                .append("relatedTo", new Document("_id", entryId))
+                .append("metadataRetrieval", new Document("metadata", metadata));
+    }
+
+    private Document metadataRetrieval(ObjectId eventId) {
+        return mongoTemplate.getCollection("event").find(new Document("_id", eventId)).first()
+                .get("metadataRetrieval", Document.class);
+    }
+
+    private Document event(ObjectId eventId) {
+        return mongoTemplate.getCollection("event").find(new Document("_id", eventId)).first();
+    }
+
+    @Test
+    @DisplayName("004: DBRefs of events are replaced with embedded references")
+    public void embedEventReferences() {
+        // GIVEN (entry, triggering event and events referencing them by DBRef)
+        ObjectId entryId = new ObjectId();
+        ObjectId missingEntryId = new ObjectId();
+        ObjectId triggerId = new ObjectId();
+        ObjectId retrievalId = new ObjectId();
+        ObjectId danglingId = new ObjectId();
+        String triggerUuid = "a2f4c6e8-0000-4000-8000-000000000001";
+        mongoTemplate.getCollection("indexEntry").insertOne(new Document()
+                .append("_id", entryId)
+                .append("clientUrl", REPOSITORY_URI)
+                .append("state", "Valid")
+                .append("registrationTime", "2020-01-01T00:00:00Z"));
+        mongoTemplate.getCollection("event").insertMany(List.of(
+                new Document()
+                        .append("_id", triggerId)
+                        .append("uuid", triggerUuid)
+                        .append("type", "AdminTrigger")
+                        .append("created", "2020-01-01T00:00:00Z"),
+                new Document()
+                        .append("_id", retrievalId)
+                        .append("type", "MetadataRetrieval")
+                        .append("relatedTo", new DBRef("indexEntry", entryId))
+                        .append("triggeredBy", new DBRef("event", triggerId)),
+                new Document()
+                        .append("_id", danglingId)
+                        .append("type", "MetadataRetrieval")
+                        .append("relatedTo", new DBRef("indexEntry", missingEntryId))
+                        .append("triggeredBy", new DBRef("event", new ObjectId()))
+        ));
+
+        // WHEN
+        changeLog.embedEventReferences(mongoTemplate.getDb());
+
+        // THEN
+        Document retrieval = event(retrievalId);
+        Document relatedTo = retrieval.get("relatedTo", Document.class);
+        Document triggeredBy = retrieval.get("triggeredBy", Document.class);
+        assertThat("Entry reference keeps ID", relatedTo.getObjectId("_id"), is(equalTo(entryId)));
+        assertThat("Entry reference embeds client URL", relatedTo.getString("clientUrl"), is(equalTo(REPOSITORY_URI)));
+        assertThat("Entry reference embeds state", relatedTo.getString("state"), is(equalTo("Valid")));
+        assertThat("Entry reference embeds only reference fields", relatedTo.keySet(), is(equalTo(Set.of("_id", "clientUrl", "state"))));
+        assertThat("Trigger reference keeps ID", triggeredBy.getObjectId("_id"), is(equalTo(triggerId)));
+        assertThat("Trigger reference embeds UUID", triggeredBy.getString("uuid"), is(equalTo(triggerUuid)));
+        assertThat("Trigger reference embeds type", triggeredBy.getString("type"), is(equalTo("AdminTrigger")));
+        assertThat("Trigger reference embeds only reference fields", triggeredBy.keySet(), is(equalTo(Set.of("_id", "uuid", "type"))));
+        Document dangling = event(danglingId);
+        assertThat("Dangling entry reference keeps only ID", dangling.get("relatedTo", Document.class), is(equalTo(new Document("_id", missingEntryId))));
+        assertThat("Dangling trigger reference keeps only ID", dangling.get("triggeredBy", Document.class).keySet(), is(equalTo(Set.of("_id"))));
+        assertThat("Event without references is untouched", event(triggerId).containsKey("relatedTo"), is(equalTo(false)));
+    }
+
+    @Test
+    @DisplayName("010: legacy metadata are converted to short keys")
+    public void compactRepositoryMetadata() {
+        // GIVEN (legacy entry and event)
+        ObjectId entryId = new ObjectId();
+        ObjectId eventId = new ObjectId();
+        mongoTemplate.getCollection("indexEntry").insertOne(new Document()
+                .append("_id", entryId)
+                .append("clientUrl", REPOSITORY_URI)
+                .append("currentMetadata", legacyMetadata()));
+        mongoTemplate.getCollection("event").insertOne(new Document()
+                .append("_id", eventId)
+                .append("type", "MetadataRetrieval")
+                .append("metadataRetrieval", new Document("metadata", legacyMetadata())));
+
+        // WHEN
+        changeLog.compactRepositoryMetadata(mongoTemplate.getDb());
+
+        // THEN
+        assertCompacted("Entry metadata", mongoTemplate.getCollection("indexEntry").find(new Document("_id", entryId)).first()
+                .get("currentMetadata", Document.class));
+        assertCompacted("Event metadata", metadataRetrieval(eventId).get("metadata", Document.class));
+        Document textIndex = null;
+        for (Document index : mongoTemplate.getCollection("indexEntry").listIndexes()) {
+            if (index.getString("name").equals("metadataText")) {
+                textIndex = index;
+            }
+        }
+        assertThat("Text index is rebuilt", textIndex != null, is(equalTo(true)));
+        assertThat("Text index covers short keys", textIndex.get("weights", Document.class).keySet(), is(equalTo(Set.of(
+                "currentMetadata." + RepositoryMetadata.FIELD_TITLE,
+                "currentMetadata." + RepositoryMetadata.FIELD_DESCRIPTION,
+                "currentMetadata." + RepositoryMetadata.FIELD_PUBLISHER_NAME,
+                "clientUrl"
+        ))));
+        assertThat("Title has the highest weight", textIndex.get("weights", Document.class).getInteger("currentMetadata." + RepositoryMetadata.FIELD_TITLE), is(equalTo(10)));
+        assertThat("Text search finds the entry", mongoTemplate.getCollection("indexEntry").countDocuments(new Document("$text", new Document("$search", "Example Publisher"))), is(equalTo(1L)));
+    }
+
+    @Test
+    @DisplayName("011: embedded metadata are moved to snapshots")
+    public void addMetadataSnapshots() {
+        // GIVEN (legacy events of one entry: original, repeated, changed metadata)
+        ObjectId entryId = new ObjectId();
+        List<Document> events = new ArrayList<>();
+        events.add(retrievalEvent(entryId, compactMetadata("Title")));
+        events.add(retrievalEvent(entryId, compactMetadata("Title")));
+        events.add(retrievalEvent(entryId, compactMetadata("New title")));
+        mongoTemplate.getCollection("event").insertMany(events);
+        mongoTemplate.getCollection("indexEntry").insertOne(new Document()
+                .append("_id", entryId)
+                .append("clientUrl", REPOSITORY_URI)
+                .append("currentMetadata", compactMetadata("New title")));
+        String hash = MetadataRetrievalUtils.computeMetadataHash(repositoryMetadata("Title"));
+        String newHash = MetadataRetrievalUtils.computeMetadataHash(repositoryMetadata("New title"));
+
+        // WHEN
+        changeLog.addMetadataSnapshots(mongoTemplate.getDb());
+
+        // THEN
+        assertThat("One snapshot per distinct metadata is stored", mongoTemplate.getCollection("metadataSnapshot").countDocuments(), is(equalTo(2L)));
+        assertThat("Snapshot holds the metadata", mongoTemplate.getCollection("metadataSnapshot").find(new Document("_id", hash)).first()
+                .get("metadata", Document.class), is(equalTo(compactMetadata("Title"))));
+        Document first = metadataRetrieval(events.get(0).getObjectId("_id"));
+        Document repeated = metadataRetrieval(events.get(1).getObjectId("_id"));
+        Document changed = metadataRetrieval(events.get(2).getObjectId("_id"));
+        assertThat("Embedded metadata are removed", first.containsKey("metadata"), is(equalTo(false)));
+        assertThat("First event refers to its snapshot", first.getString("snapshot"), is(equalTo(hash)));
+        assertThat("First event is changed", first.getBoolean("changed"), is(equalTo(true)));
+        assertThat("Repeated event refers to the same snapshot", repeated.getString("snapshot"), is(equalTo(hash)));
+        assertThat("Repeated event is not changed", repeated.getBoolean("changed"), is(equalTo(false)));
+        assertThat("Changed event refers to new snapshot", changed.getString("snapshot"), is(equalTo(newHash)));
+        assertThat("Changed event is changed", changed.getBoolean("changed"), is(equalTo(true)));
+        assertThat("Entry refers to its current snapshot", mongoTemplate.getCollection("indexEntry").find(new Document("_id", entryId)).first()
+                .getString("metadataHash"), is(equalTo(newHash)));
+    }
+
+    private void collectStages(Document plan, List<String> stages) {
+        stages.add(plan.getString("stage"));
+        if (plan.get("inputStage") instanceof Document) {
+            collectStages(plan.get("inputStage", Document.class), stages);
+        }
+        if (plan.get("inputStages") instanceof List) {
+            plan.getList("inputStages", Document.class).forEach(input -> collectStages(input, stages));
+        }
+    }
+
+    @Test
+    @DisplayName("011: events are read in order of the timeline index")
+    public void addMetadataSnapshotsUsesIndex() {
+        // GIVEN
+        changeLog.addEventTimelineIndex(mongoTemplate.getDb());
+        ObjectId entryId = new ObjectId();
+        mongoTemplate.getCollection("event").insertMany(List.of(
+                retrievalEvent(entryId, compactMetadata("Title")),
+                retrievalEvent(new ObjectId(), compactMetadata("Title"))
+        ));
+
+        // WHEN
+        Document explain = mongoTemplate.getDb().runCommand(new Document("explain", new Document()
+                .append("find", "event")
+                .append("filter", DatabaseChangeLog.SNAPSHOT_EVENTS_FILTER.toBsonDocument(Document.class, MongoClientSettings.getDefaultCodecRegistry()))
+                .append("sort", DatabaseChangeLog.SNAPSHOT_EVENTS_ORDER.toBsonDocument(Document.class, MongoClientSettings.getDefaultCodecRegistry())))
+                .append("verbosity", "queryPlanner"));
+        List<String> stages = new ArrayList<>();
+        collectStages(explain.get("queryPlanner", Document.class).get("winningPlan", Document.class), stages);
+
+        // THEN
+        assertThat("Timeline index is scanned", stages.contains("IXSCAN"), is(equalTo(true)));
+        assertThat("Events are not sorted in memory", stages.contains("SORT"), is(equalTo(false)));
+    }
+}
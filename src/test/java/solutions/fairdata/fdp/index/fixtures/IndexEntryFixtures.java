@@ -76,9 +76,9 @@ public class IndexEntryFixtures {
         indexEntry.setCurrentMetadata(new RepositoryMetadata());
         indexEntry.getCurrentMetadata().setRepositoryUri("http://purl.org/example");
         indexEntry.getCurrentMetadata().setMetadataVersion(1);
-        indexEntry.getCurrentMetadata().getMetadata().put("title", "Example FDP");
-        indexEntry.getCurrentMetadata().getMetadata().put("version", "1.0.0");
-        indexEntry.getCurrentMetadata().getMetadata().put("description", "This is my example FAIR Data Point");
+        indexEntry.getCurrentMetadata().setTitle("Example FDP");
+        indexEntry.getCurrentMetadata().setVersion("1.0.0");
+        indexEntry.getCurrentMetadata().setDescription("This is my example FAIR Data Point");
         return indexEntry;
     }
 }
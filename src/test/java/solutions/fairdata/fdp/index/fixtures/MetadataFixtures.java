@@ -0,0 +1,40 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.fixtures;
+
+public class MetadataFixtures {
+
+    public static String repositoryMetadata(String repositoryUri, String title, String publisherName) {
+        return "@prefix dct: <http://purl.org/dc/terms/> .\n" +
+                "@prefix foaf: <http://xmlns.com/foaf/0.1/> .\n" +
+                "@prefix r3d: <http://www.re3data.org/schema/3-0#> .\n" +
+                "\n" +
+                "<" + repositoryUri + "> a r3d:Repository ;\n" +
+                "    dct:title \"" + title + "\" ;\n" +
+                "    dct:hasVersion \"1.0.0\" ;\n" +
+                "    dct:publisher <" + repositoryUri + "#publisher> ;\n" +
+                "    r3d:institutionCountry <http://lexvo.org/id/iso3166/NL> .\n" +
+                "\n" +
+                "<" + repositoryUri + "#publisher> foaf:name \"" + publisherName + "\" .\n";
+    }
+}
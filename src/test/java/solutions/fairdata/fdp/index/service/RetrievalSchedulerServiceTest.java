@@ -0,0 +1,247 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import solutions.fairdata.fdp.index.entity.config.EventsConfig;
+import solutions.fairdata.fdp.index.entity.events.Event;
+import solutions.fairdata.fdp.index.entity.events.MetadataRetrieval;
+import solutions.fairdata.fdp.index.entity.http.Response;
+import solutions.fairdata.fdp.index.fixtures.IndexEntryFixtures;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+@DisplayName("RetrievalSchedulerService")
+public class RetrievalSchedulerServiceTest {
+
+    private static final String CLIENT_URL = "http://example.com/fdp";
+
+    private RetrievalSchedulerService retrievalSchedulerService;
+
+    private void start(int concurrency, Duration minDelay, Duration maxDelay, int maxConnections) {
+        EventsConfig eventsConfig = EventsConfig.builder()
+                .retrievalConcurrency(concurrency)
+                .retrievalHostMinDelay(minDelay)
+                .retrievalHostMaxDelay(maxDelay)
+                .retrievalHostMaxConnections(maxConnections)
+                .build();
+        retrievalSchedulerService = new RetrievalSchedulerService();
+        ReflectionTestUtils.setField(retrievalSchedulerService, "eventsConfig", eventsConfig);
+        retrievalSchedulerService.startWorkers();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (retrievalSchedulerService != null) {
+            retrievalSchedulerService.stopWorkers();
+        }
+    }
+
+    private Response response(int code, Map<String, List<String>> headers) {
+        Response response = new Response();
+        response.setCode(code);
+        response.setHeaders(headers);
+        return response;
+    }
+
+    private Event event(String clientUrl) {
+        return new Event(1, null, IndexEntryFixtures.activeEntry(clientUrl), new MetadataRetrieval());
+    }
+
+    private void runAll(List<Event> events, Consumer<Event> retrieval) {
+        retrievalSchedulerService.submitAll(events, retrieval).join();
+    }
+
+    @Test
+    @DisplayName("Retry-After in seconds is parsed")
+    public void retryAfterSeconds() {
+        // WHEN
+        Duration retryAfter = RetrievalSchedulerService.retryAfter(response(429, Map.of("retry-after", List.of(" 120 "))));
+
+        // THEN
+        assertThat(retryAfter, is(equalTo(Duration.ofSeconds(120))));
+    }
+
+    @Test
+    @DisplayName("Retry-After as HTTP date is parsed")
+    public void retryAfterDate() {
+        // GIVEN
+        String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusMinutes(10));
+        String past = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).minusMinutes(10));
+
+        // WHEN
+        Duration retryAfter = RetrievalSchedulerService.retryAfter(response(503, Map.of("Retry-After", List.of(date))));
+        Duration retryAfterPast = RetrievalSchedulerService.retryAfter(response(503, Map.of("Retry-After", List.of(past))));
+
+        // THEN
+        assertThat("Date in future is time until it", retryAfter.compareTo(Duration.ofMinutes(9)) > 0
+                && retryAfter.compareTo(Duration.ofMinutes(10)) <= 0, is(equalTo(true)));
+        assertThat("Date in past is no wait", retryAfterPast, is(equalTo(Duration.ZERO)));
+    }
+
+    @Test
+    @DisplayName("Missing or invalid Retry-After is ignored")
+    public void retryAfterMissing() {
+        // THEN
+        assertThat("No headers", RetrievalSchedulerService.retryAfter(response(429, null)), is(equalTo(null)));
+        assertThat("No Retry-After", RetrievalSchedulerService.retryAfter(response(429, Map.of())), is(equalTo(null)));
+        assertThat("Invalid Retry-After", RetrievalSchedulerService.retryAfter(response(429, Map.of("Retry-After", List.of("soon")))), is(equalTo(null)));
+    }
+
+    @Test
+    @DisplayName("Host delay doubles when asked to slow down and decays afterwards")
+    public void hostDelay() {
+        // GIVEN
+        start(2, Duration.ofMillis(50), Duration.ofMillis(400), 1);
+        List<Integer> codes = List.of(200, 429, 503, 429, 200);
+        List<Event> events = codes.stream().map(code -> event(CLIENT_URL)).collect(Collectors.toList());
+        List<Duration> delays = Collections.synchronizedList(new ArrayList<>());
+
+        // WHEN (single connection, so requests are made in order)
+        runAll(events, event -> {
+            retrievalSchedulerService.recordResponse(CLIENT_URL, response(codes.get(delays.size()), Map.of()));
+            delays.add(retrievalSchedulerService.getHostDelay(CLIENT_URL));
+        });
+
+        // THEN
+        assertThat("Delay stays at minimum", delays.get(0), is(equalTo(Duration.ofMillis(50))));
+        assertThat("Delay doubles on 429", delays.get(1), is(equalTo(Duration.ofMillis(100))));
+        assertThat("Delay doubles on 503", delays.get(2), is(equalTo(Duration.ofMillis(200))));
+        assertThat("Delay is capped by maximum", delays.get(3), is(equalTo(Duration.ofMillis(400))));
+        assertThat("Delay halves on success", delays.get(4), is(equalTo(Duration.ofMillis(200))));
+        assertThat("Other hosts are not tracked", retrievalSchedulerService.getHostDelay("http://other.com"), is(equalTo(null)));
+    }
+
+    @Test
+    @DisplayName("Retry-After longer than doubled delay is used")
+    public void hostDelayRetryAfter() {
+        // GIVEN
+        start(2, Duration.ZERO, Duration.ofMinutes(5), 1);
+        List<Duration> delays = new ArrayList<>();
+
+        // WHEN
+        runAll(List.of(event(CLIENT_URL)), event -> {
+            retrievalSchedulerService.recordResponse(CLIENT_URL, response(429, Map.of("Retry-After", List.of("60"))));
+            delays.add(retrievalSchedulerService.getHostDelay(CLIENT_URL));
+        });
+
+        // THEN
+        assertThat("Delay is set from Retry-After", delays.get(0), is(equalTo(Duration.ofSeconds(60))));
+    }
+
+    @Test
+    @DisplayName("Host waiting for its delay does not hold workers")
+    public void waitingHostDoesNotBlock() {
+        // GIVEN (single worker, slow host queued first)
+        Duration delay = Duration.ofMillis(500);
+        start(1, delay, Duration.ofSeconds(1), 1);
+        List<Event> events = List.of(
+                event("http://a.com/1"),
+                event("http://a.com/2"),
+                event("http://a.com/3"),
+                event("http://b.com/1"),
+                event("http://c.com/1")
+        );
+        Instant started = Instant.now();
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        Map<String, Duration> finished = new ConcurrentHashMap<>();
+
+        // WHEN
+        runAll(events, event -> {
+            order.add(event.getRelatedTo().getClientUrl());
+            finished.put(event.getRelatedTo().getClientUrl(), Duration.between(started, Instant.now()));
+        });
+
+        // THEN
+        assertThat("Other hosts are served while the first one is delayed", order, is(equalTo(List.of(
+                "http://a.com/1", "http://b.com/1", "http://c.com/1", "http://a.com/2", "http://a.com/3"
+        ))));
+        assertThat("Other hosts do not wait for the delay", finished.get("http://c.com/1").compareTo(delay) < 0, is(equalTo(true)));
+        assertThat("Requests to the same host are delayed", finished.get("http://a.com/3").compareTo(delay.multipliedBy(2)) >= 0, is(equalTo(true)));
+    }
+
+    @Test
+    @DisplayName("Concurrent requests to a host are limited")
+    public void hostConnections() {
+        // GIVEN
+        start(4, Duration.ZERO, Duration.ofSeconds(1), 2);
+        List<Event> events = List.of(event(CLIENT_URL), event(CLIENT_URL), event(CLIENT_URL), event(CLIENT_URL), event(CLIENT_URL));
+        List<Integer> running = Collections.synchronizedList(new ArrayList<>());
+        int[] current = {0};
+
+        // WHEN
+        runAll(events, event -> {
+            synchronized (current) {
+                current[0]++;
+                running.add(current[0]);
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (current) {
+                current[0]--;
+            }
+        });
+
+        // THEN
+        assertThat("All requests are made", running.size(), is(equalTo(5)));
+        assertThat("At most two requests run at once", running.stream().allMatch(count -> count <= 2), is(equalTo(true)));
+    }
+
+    @Test
+    @DisplayName("Idle hosts are evicted")
+    public void evictIdleHosts() {
+        // GIVEN
+        start(1, Duration.ZERO, Duration.ZERO, 1);
+        runAll(List.of(event(CLIENT_URL)), event -> {
+        });
+        Duration before = retrievalSchedulerService.getHostDelay(CLIENT_URL);
+
+        // WHEN
+        retrievalSchedulerService.evictIdleHosts();
+
+        // THEN
+        assertThat("Host is tracked after request", before, is(equalTo(Duration.ZERO)));
+        assertThat("Idle host is evicted", retrievalSchedulerService.getHostDelay(CLIENT_URL), is(equalTo(null)));
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import solutions.fairdata.fdp.index.WebIntegrationTest;
+import solutions.fairdata.fdp.index.database.repository.EventRepository;
+import solutions.fairdata.fdp.index.database.repository.WebhookRepository;
+import solutions.fairdata.fdp.index.entity.events.Event;
+import solutions.fairdata.fdp.index.entity.events.EventType;
+import solutions.fairdata.fdp.index.entity.events.MetadataRetrieval;
+import solutions.fairdata.fdp.index.entity.webhooks.Webhook;
+import solutions.fairdata.fdp.index.entity.webhooks.WebhookEvent;
+import solutions.fairdata.fdp.index.fixtures.IndexEntryFixtures;
+import solutions.fairdata.fdp.index.utils.AwaitUtils;
+import solutions.fairdata.fdp.index.utils.TestServer;
+import solutions.fairdata.fdp.index.utils.WebhookUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.StringContains.containsString;
+
+@DisplayName("WebhookBatchService")
+public class WebhookBatchServiceTest extends WebIntegrationTest {
+
+    private static final Duration WINDOW = Duration.ofSeconds(2);
+
+    @Autowired
+    private WebhookBatchService webhookBatchService;
+    @Autowired
+    private WebhookRepository webhookRepository;
+    @Autowired
+    private EventRepository eventRepository;
+
+    private TestServer server;
+
+    private Webhook webhook;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = TestServer.start();
+        webhook = new Webhook();
+        webhook.setPayloadUrl(server.url("/webhook"));
+        webhook.setSecret("mySecret");
+        webhook.setAllEvents(true);
+        webhook.setAllEntries(true);
+        webhook.setEnabled(true);
+        webhook.setBatching(true);
+        mongoTemplate.getDb().drop();
+        webhookRepository.save(webhook);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.close();
+    }
+
+    private List<Event> enqueue(int count) {
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Event triggerEvent = new Event(1, null, IndexEntryFixtures.entryExample(), new MetadataRetrieval());
+            Event event = WebhookUtils.prepareTriggerEvent(webhook, WebhookEvent.EntryValid, triggerEvent);
+            event.execute();
+            events.add(event);
+            webhookBatchService.enqueue(webhook, event);
+        }
+        return events;
+    }
+
+    private int countPayloads(String body) {
+        return body.split("\"uuid\"", -1).length - 1;
+    }
+
+    @Test
+    @DisplayName("Full batch is delivered without waiting for the window")
+    public void sizeFlush() {
+        // GIVEN
+        Instant started = Instant.now();
+
+        // WHEN
+        List<Event> events = enqueue(3);
+        boolean delivered = AwaitUtils.await(() -> server.getReceived("/webhook").size() == 1);
+        Duration elapsed = Duration.between(started, Instant.now());
+
+        // THEN
+        assertThat("Batch is delivered", delivered, is(equalTo(true)));
+        assertThat("Batch is delivered before the window ends", elapsed.compareTo(WINDOW) < 0, is(equalTo(true)));
+        assertThat("All triggers are in one payload", countPayloads(server.getReceived("/webhook").get(0).getBody()), is(equalTo(3)));
+        assertThat("Triggers are stored", AwaitUtils.await(() -> eventRepository.getAllByType(EventType.WebhookTrigger).stream()
+                .filter(event -> event.getFinished() != null).count() == 3), is(equalTo(true)));
+        List<Event> stored = eventRepository.getAllByType(EventType.WebhookTrigger);
+        for (Event event : stored) {
+            if (event.getUuid().equals(events.get(0).getUuid())) {
+                assertThat("First trigger keeps the full exchange", event.getWebhookTrigger().getExchange().getRequest().getHeaders() != null, is(equalTo(true)));
+                assertThat("First trigger is not a reference", event.getWebhookTrigger().getBatchOf(), is(equalTo(null)));
+            } else {
+                assertThat("Other triggers refer to the first one", event.getWebhookTrigger().getBatchOf(), is(equalTo(events.get(0).getUuid())));
+                assertThat("Other triggers keep only the outcome", event.getWebhookTrigger().getExchange().getRequest().getHeaders(), is(equalTo(null)));
+                assertThat("Other triggers keep the response code", event.getWebhookTrigger().getExchange().getResponse().getCode(), is(equalTo(204)));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Partial batch is delivered when the window ends")
+    public void windowFlush() throws Exception {
+        // WHEN
+        enqueue(2);
+        Thread.sleep(WINDOW.toMillis() / 4);
+        int deliveredEarly = server.getReceived("/webhook").size();
+        boolean delivered = AwaitUtils.await(() -> server.getReceived("/webhook").size() == 1);
+
+        // THEN
+        assertThat("Batch is not delivered before the window ends", deliveredEarly, is(equalTo(0)));
+        assertThat("Batch is delivered after the window ends", delivered, is(equalTo(true)));
+        assertThat("Buffered triggers are in one payload", countPayloads(server.getReceived("/webhook").get(0).getBody()), is(equalTo(2)));
+    }
+
+    @Test
+    @DisplayName("Batch payload is a signed array")
+    public void signedArrayPayload() {
+        // WHEN
+        enqueue(3);
+        AwaitUtils.await(() -> server.getReceived("/webhook").size() == 1);
+        TestServer.ReceivedRequest request = server.getReceived("/webhook").get(0);
+
+        // THEN
+        assertThat("Payload is an array", request.getBody().startsWith("["), is(equalTo(true)));
+        assertThat("Secret is not sent", request.getBody(), containsString("\"secret\":\"*** HIDDEN ***\""));
+        assertThat("Payload is signed by HMAC-SHA256 of the secret", request.getSignature(),
+                is(equalTo(WebhookUtils.computeHmacSignature(request.getBody(), webhook.getSecret()))));
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+import solutions.fairdata.fdp.index.WebIntegrationTest;
+import solutions.fairdata.fdp.index.database.repository.EventRepository;
+import solutions.fairdata.fdp.index.entity.config.WebhooksConfig;
+import solutions.fairdata.fdp.index.entity.events.Event;
+import solutions.fairdata.fdp.index.entity.events.EventType;
+import solutions.fairdata.fdp.index.entity.events.MetadataRetrieval;
+import solutions.fairdata.fdp.index.entity.http.ExchangeState;
+import solutions.fairdata.fdp.index.entity.webhooks.Webhook;
+import solutions.fairdata.fdp.index.entity.webhooks.WebhookDelivery;
+import solutions.fairdata.fdp.index.entity.webhooks.WebhookEvent;
+import solutions.fairdata.fdp.index.fixtures.IndexEntryFixtures;
+import solutions.fairdata.fdp.index.utils.AwaitUtils;
+import solutions.fairdata.fdp.index.utils.TestServer;
+import solutions.fairdata.fdp.index.utils.WebhookUtils;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+@DisplayName("WebhookDeliveryLogService")
+public class WebhookDeliveryLogServiceTest extends WebIntegrationTest {
+
+    @Autowired
+    private WebhookService webhookService;
+    @Autowired
+    private WebhookDeliveryLogService webhookDeliveryLogService;
+    @Autowired
+    private WebhooksConfig webhooksConfig;
+    @Autowired
+    private EventRepository eventRepository;
+
+    private TestServer server;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = TestServer.start();
+        mongoTemplate.getDb().drop();
+        ReflectionTestUtils.setField(webhooksConfig, "deliveryLog", true);
+        webhookDeliveryLogService.startConsumer();
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        webhookDeliveryLogService.stopConsumer();
+        ReflectionTestUtils.setField(webhooksConfig, "deliveryLog", false);
+        server.close();
+    }
+
+    private Webhook webhook(String path) {
+        Webhook webhook = new Webhook();
+        webhook.setUuid(UUID.randomUUID());
+        webhook.setPayloadUrl(server.url(path));
+        webhook.setSecret("mySecret");
+        webhook.setAllEvents(true);
+        webhook.setAllEntries(true);
+        webhook.setEnabled(true);
+        return webhook;
+    }
+
+    private Event trigger(Webhook webhook) {
+        Event triggerEvent = new Event(1, null, IndexEntryFixtures.entryExample(), new MetadataRetrieval());
+        Event event = WebhookUtils.prepareTriggerEvent(webhook, WebhookEvent.EntryValid, triggerEvent);
+        webhookService.processWebhookTrigger(event);
+        return event;
+    }
+
+    @Test
+    @DisplayName("Only failed triggers are stored in full")
+    public void onlyFailedStored() {
+        // GIVEN
+        server.respond("/failing", 500, "Internal Server Error");
+        Webhook delivering = webhook("/delivering");
+        Webhook failing = webhook("/failing");
+
+        // WHEN
+        Event delivered = trigger(delivering);
+        Event failed = trigger(failing);
+
+        // THEN
+        assertThat("Both deliveries are logged", AwaitUtils.await(() -> mongoTemplate.count(new Query(), WebhookDelivery.class) == 2), is(equalTo(true)));
+        List<Event> stored = eventRepository.getAllByType(EventType.WebhookTrigger);
+        assertThat("Only one trigger is stored", stored.size(), is(equalTo(1)));
+        assertThat("Stored trigger is the failed one", stored.get(0).getUuid(), is(equalTo(failed.getUuid())));
+        assertThat("Stored trigger keeps the full exchange", stored.get(0).getWebhookTrigger().getExchange().getResponse().getCode(), is(equalTo(500)));
+        List<WebhookDelivery> deliveries = mongoTemplate.findAll(WebhookDelivery.class);
+        for (WebhookDelivery delivery : deliveries) {
+            if (delivery.getEventUuid().equals(delivered.getUuid())) {
+                assertThat("Delivered trigger is logged as such", delivery.getState(), is(equalTo(ExchangeState.Retrieved)));
+                assertThat("Delivered trigger logs response code", delivery.getResponseCode(), is(equalTo(204)));
+            } else {
+                assertThat("Failed trigger is logged", delivery.getEventUuid(), is(equalTo(failed.getUuid())));
+                assertThat("Failed trigger logs response code", delivery.getResponseCode(), is(equalTo(500)));
+            }
+        }
+    }
+}
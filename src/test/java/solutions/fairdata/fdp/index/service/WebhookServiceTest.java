@@ -0,0 +1,151 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+import solutions.fairdata.fdp.index.WebIntegrationTest;
+import solutions.fairdata.fdp.index.database.repository.EventRepository;
+import solutions.fairdata.fdp.index.database.repository.WebhookRepository;
+import solutions.fairdata.fdp.index.entity.config.WebhooksConfig;
+import solutions.fairdata.fdp.index.entity.events.Event;
+import solutions.fairdata.fdp.index.entity.events.EventType;
+import solutions.fairdata.fdp.index.entity.events.MetadataRetrieval;
+import solutions.fairdata.fdp.index.entity.webhooks.Webhook;
+import solutions.fairdata.fdp.index.entity.webhooks.WebhookDeadLetter;
+import solutions.fairdata.fdp.index.entity.webhooks.WebhookEvent;
+import solutions.fairdata.fdp.index.entity.webhooks.WebhookSignature;
+import solutions.fairdata.fdp.index.fixtures.IndexEntryFixtures;
+import solutions.fairdata.fdp.index.utils.TestServer;
+import solutions.fairdata.fdp.index.utils.WebhookMatcher;
+import solutions.fairdata.fdp.index.utils.WebhookUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+@DisplayName("WebhookService")
+public class WebhookServiceTest extends WebIntegrationTest {
+
+    @Autowired
+    private WebhookService webhookService;
+    @Autowired
+    private EventRepository eventRepository;
+
+    private TestServer server;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = TestServer.start();
+        mongoTemplate.getDb().drop();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.close();
+    }
+
+    private Webhook webhook(String secret, WebhookSignature signature) {
+        Webhook webhook = new Webhook();
+        webhook.setUuid(UUID.randomUUID());
+        webhook.setPayloadUrl(server.url("/webhook"));
+        webhook.setSecret(secret);
+        webhook.setSignature(signature);
+        webhook.setAllEvents(true);
+        webhook.setAllEntries(true);
+        webhook.setEnabled(true);
+        return webhook;
+    }
+
+    private Event trigger(Webhook webhook) {
+        Event triggerEvent = new Event(1, null, IndexEntryFixtures.entryExample(), new MetadataRetrieval());
+        Event event = WebhookUtils.prepareTriggerEvent(webhook, WebhookEvent.EntryValid, triggerEvent);
+        webhookService.processWebhookTrigger(event);
+        return event;
+    }
+
+    @Test
+    @DisplayName("Trigger is signed by HMAC-SHA256 of the secret")
+    public void hmacSigned() {
+        // WHEN
+        trigger(webhook("mySecret", WebhookSignature.HmacSha256));
+
+        // THEN
+        List<TestServer.ReceivedRequest> received = server.getReceived("/webhook");
+        assertThat("Webhook is delivered", received.size(), is(equalTo(1)));
+        assertThat("Payload is signed", received.get(0).getSignature(),
+                is(equalTo(WebhookUtils.computeHmacSignature(received.get(0).getBody(), "mySecret"))));
+    }
+
+    @Test
+    @DisplayName("Trigger without secret finishes as failed")
+    public void missingSecret() {
+        // WHEN
+        Event event = trigger(webhook(null, WebhookSignature.HmacSha256));
+
+        // THEN
+        assertThat("Nothing is delivered", server.getReceived("/webhook").size(), is(equalTo(0)));
+        assertThat("Trigger is finished", event.getFinished() != null, is(equalTo(true)));
+        List<Event> stored = eventRepository.getAllByType(EventType.WebhookTrigger);
+        assertThat("Trigger is stored", stored.size(), is(equalTo(1)));
+        assertThat("Stored trigger is finished", stored.get(0).getFinished() != null, is(equalTo(true)));
+        assertThat("Trigger is kept as dead letter", mongoTemplate.findAll(WebhookDeadLetter.class).size(), is(equalTo(1)));
+    }
+
+    @Test
+    @DisplayName("Matchers loaded while webhooks change are not kept")
+    public void matchersReloadRace() {
+        // GIVEN (webhook is created while a reload is reading the stale registry)
+        WebhookService service = new WebhookService();
+        WebhookRepository repository = Mockito.mock(WebhookRepository.class);
+        ReflectionTestUtils.setField(service, "webhookRepository", repository);
+        ReflectionTestUtils.setField(service, "webhooksConfig", WebhooksConfig.builder().registryRefresh(Duration.ofHours(1)).build());
+        Webhook created = webhook("mySecret", WebhookSignature.HmacSha256);
+        Mockito.when(repository.findAll())
+                .thenAnswer(invocation -> {
+                    service.invalidateMatchers();
+                    return List.of();
+                })
+                .thenReturn(List.of(created));
+
+        // WHEN
+        List<WebhookMatcher> duringChange = service.getMatchers();
+        List<WebhookMatcher> afterChange = service.getMatchers();
+        List<WebhookMatcher> cached = service.getMatchers();
+
+        // THEN
+        assertThat("Reload overlapping the change sees the stale registry", duringChange.size(), is(equalTo(0)));
+        assertThat("Stale matchers are reloaded on next use", afterChange.size(), is(equalTo(1)));
+        assertThat("Reloaded matchers are cached", cached, is(equalTo(afterChange)));
+        Mockito.verify(repository, Mockito.times(2)).findAll();
+    }
+}
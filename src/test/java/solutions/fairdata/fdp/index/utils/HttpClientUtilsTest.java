@@ -0,0 +1,75 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.security.Security;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsNull.nullValue;
+
+@DisplayName("HttpClientUtils")
+public class HttpClientUtilsTest {
+
+    @Test
+    @DisplayName("JVM address cache TTLs are configured")
+    public void dnsCacheConfigured() {
+        // WHEN
+        HttpClientUtils.configureDnsCache();
+
+        // THEN
+        assertThat("TTL of resolved hosts is set", Security.getProperty("networkaddress.cache.ttl"), is(not(nullValue())));
+        assertThat("TTL of unknown hosts is set", Security.getProperty("networkaddress.cache.negative.ttl"), is(not(nullValue())));
+    }
+
+    @Test
+    @DisplayName("Explicit JVM address cache TTLs are kept")
+    public void dnsCacheExplicit() {
+        // GIVEN
+        String ttl = Security.getProperty("networkaddress.cache.ttl");
+        String negativeTtl = Security.getProperty("networkaddress.cache.negative.ttl");
+        Security.setProperty("networkaddress.cache.ttl", "42");
+        Security.setProperty("networkaddress.cache.negative.ttl", "7");
+
+        try {
+            // WHEN
+            HttpClientUtils.configureDnsCache();
+
+            // THEN
+            assertThat("TTL of resolved hosts is kept", Security.getProperty("networkaddress.cache.ttl"), is(equalTo("42")));
+            assertThat("TTL of unknown hosts is kept", Security.getProperty("networkaddress.cache.negative.ttl"), is(equalTo("7")));
+        } finally {
+            if (ttl != null) {
+                Security.setProperty("networkaddress.cache.ttl", ttl);
+            }
+            if (negativeTtl != null) {
+                Security.setProperty("networkaddress.cache.negative.ttl", negativeTtl);
+            }
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import solutions.fairdata.fdp.index.entity.IndexEntry;
+import solutions.fairdata.fdp.index.entity.IndexEntryState;
+import solutions.fairdata.fdp.index.entity.RepositoryMetadata;
+import solutions.fairdata.fdp.index.entity.config.EventsConfig;
+import solutions.fairdata.fdp.index.entity.events.AdminTrigger;
+import solutions.fairdata.fdp.index.entity.events.Event;
+import solutions.fairdata.fdp.index.entity.events.MetadataChange;
+import solutions.fairdata.fdp.index.fixtures.IndexEntryFixtures;
+import solutions.fairdata.fdp.index.fixtures.MetadataFixtures;
+import solutions.fairdata.fdp.index.service.IndexEntryService;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+@DisplayName("MetadataRetrievalUtils")
+public class MetadataRetrievalUtilsTest {
+
+    private final EventsConfig eventsConfig = EventsConfig.builder()
+            .retrievalTimeout(Duration.ofMinutes(1))
+            .retrievalBackoffBase(Duration.ofMinutes(10))
+            .retrievalBackoffMax(Duration.ofDays(7))
+            .retrievalSkipDeadAfter(Duration.ofDays(30))
+            .retrievalAdaptiveTimeoutMin(Duration.ofSeconds(5))
+            .retrievalAdaptiveTimeoutFactor(3.0)
+            .retrievalAdaptiveTimeoutSamples(20)
+            .build();
+
+    private IndexEntry unreachableEntry(String clientUrl, Duration unreachableFor, Duration retryIn) {
+        IndexEntry entry = IndexEntryFixtures.activeEntry(clientUrl);
+        entry.setState(IndexEntryState.Unreachable);
+        entry.setFailureCount(3);
+        entry.setUnreachableSince(Instant.now().minus(unreachableFor));
+        entry.setNextRetryTime(Instant.now().plus(retryIn));
+        return entry;
+    }
+
+    private IndexEntry entryWithLatencies(int count, long latencyMillis) {
+        IndexEntry entry = IndexEntryFixtures.activeEntry("http://example.com");
+        for (int i = 0; i < count; i++) {
+            entry.getRetrievalLatencies().add(latencyMillis);
+        }
+        return entry;
+    }
+
+    private RepositoryMetadata metadata(String title, String publisherName) throws Exception {
+        String turtle = MetadataFixtures.repositoryMetadata("http://example.com/fdp", title, publisherName);
+        return MetadataRetrievalUtils.parseRepositoryMetadata(turtle).orElseThrow();
+    }
+
+    @Test
+    @DisplayName("Parses repository metadata")
+    public void parseRepositoryMetadata() throws Exception {
+        // WHEN
+        RepositoryMetadata metadata = metadata("Example FDP", "Example Publisher");
+
+        // THEN
+        assertThat("Repository URI is parsed", metadata.getRepositoryUri(), is(equalTo("http://example.com/fdp")));
+        assertThat("Title is parsed", metadata.getTitle(), is(equalTo("Example FDP")));
+        assertThat("Publisher name is parsed", metadata.getPublisherName(), is(equalTo("Example Publisher")));
+        assertThat("Country is parsed", metadata.getCountry(), is(equalTo("http://lexvo.org/id/iso3166/NL")));
+    }
+
+    @Test
+    @DisplayName("Diff of identical metadata is empty")
+    public void diffMetadataIdentical() throws Exception {
+        // WHEN
+        List<MetadataChange> changes = MetadataRetrievalUtils.diffMetadata(metadata("A", "P"), metadata("A", "P"));
+
+        // THEN
+        assertThat("No change is reported", changes.size(), is(equalTo(0)));
+    }
+
+    @Test
+    @DisplayName("Diff reports changed fields only")
+    public void diffMetadataChanged() throws Exception {
+        // WHEN
+        List<MetadataChange> changes = MetadataRetrievalUtils.diffMetadata(metadata("A", "P"), metadata("B", "P"));
+
+        // THEN
+        assertThat("One change is reported", changes.size(), is(equalTo(1)));
+        assertThat("Title change is reported", changes.get(0), is(equalTo(new MetadataChange("title", "A", "B"))));
+    }
+
+    @Test
+    @DisplayName("Diff reports removed fields")
+    public void diffMetadataRemoved() throws Exception {
+        // GIVEN
+        RepositoryMetadata previous = metadata("A", "P");
+        RepositoryMetadata current = metadata("A", "P");
+        current.setVersion(null);
+
+        // WHEN
+        List<MetadataChange> changes = MetadataRetrievalUtils.diffMetadata(previous, current);
+
+        // THEN
+        assertThat("Removal is reported", changes, is(equalTo(List.of(new MetadataChange("version", "1.0.0", null)))));
+    }
+
+    @Test
+    @DisplayName("Diff without previous metadata reports all fields")
+    public void diffMetadataNew() throws Exception {
+        // GIVEN
+        RepositoryMetadata current = metadata("A", "P");
+
+        // WHEN
+        List<MetadataChange> changes = MetadataRetrievalUtils.diffMetadata(null, current);
+
+        // THEN
+        assertThat("Repository URI and all fields are reported", changes.size(), is(equalTo(current.asMap().size() + 1)));
+        assertThat("Repository URI is reported first", changes.get(0), is(equalTo(new MetadataChange("repositoryUri", null, "http://example.com/fdp"))));
+    }
+
+    @Test
+    @DisplayName("Entry is due for retry unless backed off or dead")
+    public void isDueForRetry() {
+        // GIVEN
+        IndexEntry reachable = IndexEntryFixtures.activeEntry("http://example.com");
+        IndexEntry backedOff = unreachableEntry("http://backed-off.com", Duration.ofHours(1), Duration.ofHours(1));
+        IndexEntry retry = unreachableEntry("http://retry.com", Duration.ofHours(1), Duration.ofHours(-1));
+        IndexEntry dead = unreachableEntry("http://dead.com", Duration.ofDays(60), Duration.ofHours(-1));
+
+        // THEN
+        assertThat("Reachable entry is due", MetadataRetrievalUtils.isDueForRetry(reachable, eventsConfig), is(equalTo(true)));
+        assertThat("Backed-off entry is not due", MetadataRetrievalUtils.isDueForRetry(backedOff, eventsConfig), is(equalTo(false)));
+        assertThat("Entry after backoff is due", MetadataRetrievalUtils.isDueForRetry(retry, eventsConfig), is(equalTo(true)));
+        assertThat("Long-dead entry is not due", MetadataRetrievalUtils.isDueForRetry(dead, eventsConfig), is(equalTo(false)));
+    }
+
+    @Test
+    @DisplayName("Bulk trigger prepares retrievals of due entries only")
+    public void prepareEventsBulk() {
+        // GIVEN
+        IndexEntry due = IndexEntryFixtures.activeEntry("http://example.com");
+        IndexEntry backedOff = unreachableEntry("http://backed-off.com", Duration.ofHours(1), Duration.ofHours(1));
+        IndexEntryService indexEntryService = Mockito.mock(IndexEntryService.class);
+        Mockito.when(indexEntryService.getAllEntries()).thenReturn(List.of(due, backedOff));
+        Event triggerEvent = new Event(1, new AdminTrigger("127.0.0.1", "admin", null));
+
+        // WHEN
+        List<Event> events = new ArrayList<>();
+        MetadataRetrievalUtils.prepareEvents(triggerEvent, indexEntryService, eventsConfig).forEach(events::add);
+
+        // THEN
+        assertThat("One retrieval is prepared", events.size(), is(equalTo(1)));
+        assertThat("Retrieval of due entry is prepared", events.get(0).getRelatedTo().getClientUrl(), is(equalTo(due.getClientUrl())));
+    }
+
+    @Test
+    @DisplayName("Single trigger prepares retrieval regardless of backoff")
+    public void prepareEventsSingle() {
+        // GIVEN
+        IndexEntry backedOff = unreachableEntry("http://backed-off.com", Duration.ofHours(1), Duration.ofHours(1));
+        IndexEntryService indexEntryService = Mockito.mock(IndexEntryService.class);
+        Event triggerEvent = new Event(1, new AdminTrigger("127.0.0.1", "admin", backedOff.getClientUrl()));
+        triggerEvent.setRelatedEntry(backedOff);
+
+        // WHEN
+        List<Event> events = new ArrayList<>();
+        MetadataRetrievalUtils.prepareEvents(triggerEvent, indexEntryService, eventsConfig).forEach(events::add);
+
+        // THEN
+        assertThat("One retrieval is prepared", events.size(), is(equalTo(1)));
+        Mockito.verify(indexEntryService, Mockito.never()).getAllEntries();
+    }
+
+    @Test
+    @DisplayName("Timeout falls back to configured one without enough history")
+    public void retrievalTimeoutWithoutHistory() {
+        // GIVEN
+        IndexEntry entry = entryWithLatencies(5, 100);
+
+        // THEN
+        assertThat("Configured timeout is used", MetadataRetrievalUtils.retrievalTimeout(entry, eventsConfig), is(equalTo(Duration.ofMinutes(1))));
+    }
+
+    @Test
+    @DisplayName("Timeout is derived from p99 latency within bounds")
+    public void retrievalTimeoutAdaptive() {
+        // GIVEN
+        IndexEntry fast = entryWithLatencies(20, 100);
+        IndexEntry medium = entryWithLatencies(19, 1000);
+        medium.getRetrievalLatencies().add(4000L);
+        IndexEntry slow = entryWithLatencies(20, 30000);
+        IndexEntry failed = entryWithLatencies(20, 100);
+        failed.setFailureCount(1);
+
+        // THEN
+        assertThat("Minimal timeout is used for fast entry", MetadataRetrievalUtils.retrievalTimeout(fast, eventsConfig), is(equalTo(Duration.ofSeconds(5))));
+        assertThat("Timeout is p99 multiplied by factor", MetadataRetrievalUtils.retrievalTimeout(medium, eventsConfig), is(equalTo(Duration.ofSeconds(12))));
+        assertThat("Configured timeout caps slow entry", MetadataRetrievalUtils.retrievalTimeout(slow, eventsConfig), is(equalTo(Duration.ofMinutes(1))));
+        assertThat("Configured timeout is used after failure", MetadataRetrievalUtils.retrievalTimeout(failed, eventsConfig), is(equalTo(Duration.ofMinutes(1))));
+    }
+
+    @Test
+    @DisplayName("Failures back off exponentially up to maximum")
+    public void recordRetrievalFailure() {
+        // GIVEN
+        IndexEntry entry = IndexEntryFixtures.activeEntry("http://example.com");
+
+        // WHEN
+        MetadataRetrievalUtils.recordRetrievalFailure(entry, eventsConfig);
+        Duration first = Duration.between(Instant.now(), entry.getNextRetryTime());
+        MetadataRetrievalUtils.recordRetrievalFailure(entry, eventsConfig);
+        Duration second = Duration.between(Instant.now(), entry.getNextRetryTime());
+        for (int i = 0; i < 30; i++) {
+            MetadataRetrievalUtils.recordRetrievalFailure(entry, eventsConfig);
+        }
+        Duration last = Duration.between(Instant.now(), entry.getNextRetryTime());
+
+        // THEN
+        assertThat("First retry is after base backoff", Math.round(first.toSeconds() / 60.0), is(equalTo(10L)));
+        assertThat("Backoff doubles", Math.round(second.toSeconds() / 60.0), is(equalTo(20L)));
+        assertThat("Backoff is capped", Math.round(last.toSeconds() / 3600.0), is(equalTo(7 * 24L)));
+    }
+}
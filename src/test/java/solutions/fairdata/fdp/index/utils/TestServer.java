@@ -0,0 +1,128 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Local HTTP server standing for FAIR Data Points and webhook receivers in tests.
+ */
+public class TestServer implements AutoCloseable {
+
+    private final HttpServer server;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final Map<String, Reply> replies = new ConcurrentHashMap<>();
+
+    private final List<ReceivedRequest> received = new CopyOnWriteArrayList<>();
+
+    private TestServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public static TestServer start() throws IOException {
+        return new TestServer();
+    }
+
+    public String url(String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+
+    public void respond(String path, int code, String body) {
+        respond(path, code, body, Duration.ZERO);
+    }
+
+    public void respond(String path, int code, String body, Duration delay) {
+        replies.put(path, new Reply(code, body, delay));
+    }
+
+    public List<ReceivedRequest> getReceived(String path) {
+        return received.stream()
+                .filter(request -> request.getPath().equals(path))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        received.add(new ReceivedRequest(path, exchange.getRequestHeaders().getFirst("X-Signature"), body));
+        Reply reply = replies.getOrDefault(path, new Reply(204, "", Duration.ZERO));
+        if (!reply.getDelay().isZero()) {
+            try {
+                Thread.sleep(reply.getDelay().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        byte[] content = reply.getBody().getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(reply.getCode(), content.length == 0 ? -1 : content.length);
+        if (content.length > 0) {
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(content);
+            }
+        }
+        exchange.close();
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class Reply {
+        private int code;
+        private String body;
+        private Duration delay;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class ReceivedRequest {
+        private String path;
+        private String signature;
+        private String body;
+    }
+}
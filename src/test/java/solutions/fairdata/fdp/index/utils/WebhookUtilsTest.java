@@ -0,0 +1,111 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import solutions.fairdata.fdp.index.api.dto.WebhookPayloadDTO;
+import solutions.fairdata.fdp.index.entity.IndexEntryReference;
+import solutions.fairdata.fdp.index.entity.events.Event;
+import solutions.fairdata.fdp.index.entity.webhooks.Webhook;
+import solutions.fairdata.fdp.index.entity.webhooks.WebhookDeadLetter;
+import solutions.fairdata.fdp.index.entity.webhooks.WebhookEvent;
+import solutions.fairdata.fdp.index.fixtures.IndexEntryFixtures;
+
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("WebhookUtils")
+public class WebhookUtilsTest {
+
+    private static final String MESSAGE = "The quick brown fox jumps over the lazy dog";
+
+    @Test
+    @DisplayName("HMAC-SHA256 signature matches known answer")
+    public void hmacKnownAnswer() {
+        // WHEN
+        String signature = WebhookUtils.computeHmacSignature(MESSAGE, "key");
+
+        // THEN
+        assertThat(signature, is(equalTo("sha256=f7bc83f430538424b13298e6aa6fb143ef4d59a14946175997479dbc2d1a3cd8")));
+    }
+
+    @Test
+    @DisplayName("Cached Mac is re-keyed for each secret")
+    public void hmacReusedMac() {
+        // GIVEN
+        String first = WebhookUtils.computeHmacSignature(MESSAGE, "key");
+
+        // WHEN
+        String other = WebhookUtils.computeHmacSignature(MESSAGE, "otherKey");
+        String again = WebhookUtils.computeHmacSignature(MESSAGE, "key");
+
+        // THEN
+        assertThat("Different secret gives different signature", other.equals(first), is(equalTo(false)));
+        assertThat("Same secret gives same signature", again, is(equalTo(first)));
+    }
+
+    @Test
+    @DisplayName("HMAC-SHA256 signature requires secret")
+    public void hmacMissingSecret() {
+        // THEN
+        assertThrows(IllegalArgumentException.class, () -> WebhookUtils.computeHmacSignature(MESSAGE, null));
+        assertThrows(IllegalArgumentException.class, () -> WebhookUtils.computeHmacSignature(MESSAGE, ""));
+    }
+
+    @Test
+    @DisplayName("Legacy SHA-1 signature matches known answer")
+    public void sha1KnownAnswer() {
+        // WHEN
+        String signature = WebhookUtils.computeHashSignature("abc");
+        String again = WebhookUtils.computeHashSignature("abc");
+
+        // THEN
+        assertThat(signature, is(equalTo("sha1=a9993e364706816aba3e25717850c26c9cd0d89d")));
+        assertThat("Cached digest is reset", again, is(equalTo(signature)));
+    }
+
+    @Test
+    @DisplayName("Replayed payload keeps UUID of the original event")
+    public void replayPayloadUuid() {
+        // GIVEN
+        Webhook webhook = new Webhook();
+        webhook.setSecret("mySecret");
+        WebhookDeadLetter deadLetter = new WebhookDeadLetter();
+        deadLetter.setEventUuid(UUID.randomUUID());
+        deadLetter.setMatchedEvent(WebhookEvent.EntryValid);
+        deadLetter.setRelatedTo(IndexEntryReference.of(IndexEntryFixtures.entryExample()));
+        Event event = WebhookUtils.prepareReplayEvent(webhook, deadLetter);
+
+        // WHEN
+        WebhookPayloadDTO webhookPayload = WebhookUtils.preparePayload(event);
+
+        // THEN
+        assertThat("Replay is a new event", event.getUuid().equals(deadLetter.getEventUuid()), is(equalTo(false)));
+        assertThat("Payload has UUID of the original event", webhookPayload.getUuid(), is(equalTo(deadLetter.getEventUuid().toString())));
+    }
+}
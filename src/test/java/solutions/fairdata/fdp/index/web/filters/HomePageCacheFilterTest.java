@@ -0,0 +1,135 @@
+/**
+ * The MIT License
+ * Copyright © 2020 https://fairdata.solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package solutions.fairdata.fdp.index.web.filters;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import solutions.fairdata.fdp.index.entity.config.HttpCacheConfig;
+import solutions.fairdata.fdp.index.service.HttpCacheService;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+@DisplayName("HomePageCacheFilter")
+public class HomePageCacheFilterTest {
+
+    private static final String ETAG = "\"1234\"";
+
+    private static final String BODY = "<html>home</html>";
+
+    private final AtomicInteger rendered = new AtomicInteger();
+
+    private final FilterChain renderPage = (request, response) -> {
+        rendered.incrementAndGet();
+        ((HttpServletResponse) response).setHeader(HttpHeaders.ETAG, ETAG);
+        response.setContentType("text/html");
+        response.getWriter().write(BODY);
+    };
+
+    private HomePageCacheFilter filter;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        HttpCacheService httpCacheService = Mockito.mock(HttpCacheService.class);
+        Mockito.when(httpCacheService.getETag()).thenReturn(ETAG);
+        Mockito.when(httpCacheService.getCacheControl()).thenReturn(CacheControl.maxAge(Duration.ofMinutes(1)).cachePublic());
+        HttpCacheConfig httpCacheConfig = HttpCacheConfig.builder()
+                .pageCacheEnabled(true)
+                .pageCacheTtl(Duration.ofMinutes(1))
+                .pageCacheSize(10)
+                .build();
+        filter = new HomePageCacheFilter();
+        ReflectionTestUtils.setField(filter, "httpCacheService", httpCacheService);
+        ReflectionTestUtils.setField(filter, "httpCacheConfig", httpCacheConfig);
+        // render the page once so that it is cached
+        filter.doFilter(new MockHttpServletRequest("GET", "/"), new MockHttpServletResponse(), renderPage);
+    }
+
+    private MockHttpServletResponse requestCached(String ifNoneMatch) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, renderPage);
+        return response;
+    }
+
+    @Test
+    @DisplayName("HTTP 200: cached page is served")
+    public void res200_cachedPage() throws Exception {
+        // WHEN
+        MockHttpServletResponse response = requestCached("\"other\"");
+
+        // THEN
+        assertThat("Page is rendered once", rendered.get(), is(equalTo(1)));
+        assertThat("Correct response code is received", response.getStatus(), is(equalTo(HttpServletResponse.SC_OK)));
+        assertThat("ETag is sent", response.getHeader(HttpHeaders.ETAG), is(equalTo(ETAG)));
+        assertThat("Cached body is sent", response.getContentAsString(), is(equalTo(BODY)));
+    }
+
+    @Test
+    @DisplayName("HTTP 304: exact ETag")
+    public void res304_exactETag() throws Exception {
+        // WHEN
+        MockHttpServletResponse response = requestCached(ETAG);
+
+        // THEN
+        assertThat("Correct response code is received", response.getStatus(), is(equalTo(HttpServletResponse.SC_NOT_MODIFIED)));
+        assertThat("ETag is sent", response.getHeader(HttpHeaders.ETAG), is(equalTo(ETAG)));
+        assertThat("No body is sent", response.getContentAsString(), is(equalTo("")));
+    }
+
+    @Test
+    @DisplayName("HTTP 304: ETag in list")
+    public void res304_etagList() throws Exception {
+        // WHEN
+        MockHttpServletResponse response = requestCached("\"other\", " + ETAG);
+
+        // THEN
+        assertThat("Correct response code is received", response.getStatus(), is(equalTo(HttpServletResponse.SC_NOT_MODIFIED)));
+    }
+
+    @Test
+    @DisplayName("HTTP 304: weak ETag")
+    public void res304_weakETag() throws Exception {
+        // WHEN
+        MockHttpServletResponse response = requestCached("W/" + ETAG);
+
+        // THEN
+        assertThat("Correct response code is received", response.getStatus(), is(equalTo(HttpServletResponse.SC_NOT_MODIFIED)));
+    }
+}